@@ -0,0 +1,218 @@
+package com.cashflow.app.data.database
+
+import android.content.Context
+import androidx.room.Room
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.cashflow.app.data.dao.TransactionFilterQuery
+import com.cashflow.app.data.model.OccurrenceSource
+import com.cashflow.app.data.model.TransactionType
+import com.cashflow.app.domain.model.TransactionFilter
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.datetime.LocalDate
+import kotlinx.datetime.LocalDateTime
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Upgrades a version 5 database through the real migrations, then runs the filter, keyset and
+ * report queries and checks with EXPLAIN QUERY PLAN that each one reads an index rather than
+ * scanning its table. Room validates the migrated schema against the entities when it opens.
+ */
+@RunWith(AndroidJUnit4::class)
+class QueryPlanTest {
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private lateinit var database: CashFlowDatabase
+
+    // Every statement the DAOs run, with its arguments
+    private val statements = CopyOnWriteArrayList<Pair<String, List<Any?>>>()
+
+    @Before
+    fun migrateFromVersion5() {
+        context.deleteDatabase(DATABASE_NAME)
+        val configuration = SupportSQLiteOpenHelper.Configuration.builder(context)
+            .name(DATABASE_NAME)
+            .callback(object : SupportSQLiteOpenHelper.Callback(5) {
+                override fun onCreate(db: SupportSQLiteDatabase) = VERSION_5_SCHEMA.forEach(db::execSQL)
+                override fun onUpgrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) = Unit
+            })
+            .build()
+        FrameworkSQLiteOpenHelperFactory().create(configuration).apply {
+            writableDatabase
+            close()
+        }
+
+        // No destructive fallback: a migration that fails or leaves the schema off fails the test
+        database = Room.databaseBuilder(context, CashFlowDatabase::class.java, DATABASE_NAME)
+            .addMigrations(*ALL_MIGRATIONS)
+            .addCallback(DATABASE_CALLBACK)
+            .setQueryCallback({ sql, args -> statements += sql to args.toList() }, Runnable::run)
+            .build()
+        database.openHelper.writableDatabase
+    }
+
+    @After
+    fun close() {
+        database.close()
+        context.deleteDatabase(DATABASE_NAME)
+    }
+
+    @Test
+    fun transactionFilterPagesUseAnIndex() {
+        val filters = listOf(
+            TransactionFilter(),
+            TransactionFilter(accountId = 1),
+            TransactionFilter(types = setOf(TransactionType.INCOME, TransactionType.TRANSFER)),
+            TransactionFilter(relatedBillId = 1),
+            TransactionFilter(relatedIncomeId = 1),
+            TransactionFilter(startDate = START, endDate = END),
+            TransactionFilter(minAmount = 10.0),
+            TransactionFilter(accountId = 1, startDate = START, endDate = END)
+        )
+        for (filter in filters) {
+            val query = TransactionFilterQuery(filter)
+            assertIndexed { database.transactionDao().getTransactions(query.latest(PAGE)) }
+            assertIndexed { database.transactionDao().getTransactions(query.olderThan(END, KEY_TIME, 10, PAGE)) }
+            assertIndexed { database.transactionDao().getTransactions(query.newerThan(START, KEY_TIME, 10, PAGE)) }
+        }
+    }
+
+    // Without a condition the totals read every row by design, so only filtered totals are checked
+    @Test
+    fun filteredTotalsUseAnIndex() {
+        val filters = listOf(
+            TransactionFilter(accountId = 1),
+            TransactionFilter(types = setOf(TransactionType.INCOME)),
+            TransactionFilter(relatedBillId = 1),
+            TransactionFilter(relatedIncomeId = 1),
+            TransactionFilter(startDate = START, endDate = END)
+        )
+        for (filter in filters) {
+            assertIndexed { database.transactionDao().observeTotals(TransactionFilterQuery(filter).totals()).first() }
+        }
+    }
+
+    @Test
+    fun dateRangeAndOccurrenceLookupsUseAnIndex() {
+        assertIndexed { database.transactionDao().getTransactionsBetween(START, END).first() }
+        assertIndexed { database.projectionDao().getTransactionsBetween(START, END) }
+        assertIndexed { database.projectionDao().getPaymentsBetween(START, END) }
+        assertIndexed { database.projectionDao().getBillOverridesBetween(START, END) }
+        assertIndexed { database.projectionDao().getIncomeOverridesBetween(START, END) }
+        assertIndexed { database.billPaymentDao().getPayment(1, START) }
+        assertIndexed { database.billPaymentDao().getPaymentsForBill(1).first() }
+        assertIndexed { database.billPaymentDao().getPaymentsForDate(START).first() }
+        assertIndexed { database.billDao().getOverride(1, START) }
+        assertIndexed { database.billDao().getOverridesForBill(1).first() }
+        assertIndexed { database.incomeDao().getOverride(1, START) }
+        assertIndexed { database.incomeDao().getOverridesForIncome(1).first() }
+        assertIndexed { database.balanceCheckpointDao().getCheckpoint(1, END) }
+        assertIndexed { database.balanceCheckpointDao().getBalanceChangeBetween(1, START, END) }
+        assertIndexed { database.balanceCheckpointDao().getDailyBalanceChanges(1, START, END) }
+        assertIndexed { database.occurrenceDao().getOccurrencesBetween(OccurrenceSource.BILL, START, END) }
+        assertIndexed { database.occurrenceDao().getDueBillReminders(START) }
+    }
+
+    @Test
+    fun keysetExportPagesUseAnIndex() {
+        assertIndexed { database.accountDao().getAccountsAfter(0, PAGE) }
+        assertIndexed { database.incomeDao().getIncomeAfter(0, PAGE) }
+        assertIndexed { database.incomeDao().getOverridesAfter(0, PAGE) }
+        assertIndexed { database.billDao().getBillsAfter(0, PAGE) }
+        assertIndexed { database.billDao().getOverridesAfter(0, PAGE) }
+        assertIndexed { database.billPaymentDao().getPaymentsAfter(0, PAGE) }
+        assertIndexed { database.transactionDao().getTransactionsAfter(0, PAGE) }
+        assertIndexed { database.backupDao().getChangedAccountsAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedIncomeAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedIncomeOverridesAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedBillsAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedBillOverridesAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedTransactionsAfter(0, 0, PAGE) }
+        assertIndexed { database.backupDao().getChangedPaymentsAfter(0, 0, PAGE) }
+    }
+
+    @Test
+    fun monthlyReportsUseAnIndex() {
+        assertIndexed { database.reportDao().observeMonthlyTotals(202401, 202412).first() }
+        assertIndexed { database.reportDao().observeMonthlyTotalsForAccount(1, 202401, 202412).first() }
+    }
+
+    // Runs [read] and checks the plan of every SELECT it sent to the database
+    private fun assertIndexed(read: suspend () -> Unit) = runBlocking {
+        statements.clear()
+        read()
+        val selects = statements.filter { (sql, _) ->
+            sql.trimStart().startsWith("SELECT", ignoreCase = true) && "room_table_modification_log" !in sql
+        }
+        assertTrue("The read ran no query", selects.isNotEmpty())
+        for ((sql, args) in selects) assertUsesIndex(sql, args)
+    }
+
+    private fun assertUsesIndex(sql: String, args: List<Any?>) {
+        val plan = mutableListOf<String>()
+        database.openHelper.readableDatabase
+            .query(SimpleSQLiteQuery("EXPLAIN QUERY PLAN $sql", args.toTypedArray()))
+            .use { cursor ->
+                val detail = cursor.getColumnIndexOrThrow("detail")
+                while (cursor.moveToNext()) plan += cursor.getString(detail)
+            }
+        // "SCAN transactions" (or "SCAN TABLE transactions" on older SQLite) reads the whole table;
+        // a scan along an index still says which index it uses
+        val scans = plan.mapNotNull { TABLE_SCAN.matchEntire(it)?.groupValues?.get(2) }
+            .filter { it !in SMALL_TABLES }
+        if (scans.isNotEmpty() || plan.none { "USING" in it }) {
+            fail("Query does not use an index:\n$sql\n${plan.joinToString("\n")}")
+        }
+    }
+
+    private companion object {
+        const val DATABASE_NAME = "query-plan-test"
+        const val PAGE = 50
+        val START = LocalDate(2024, 1, 1)
+        val END = LocalDate(2024, 12, 31)
+        val KEY_TIME = LocalDateTime(2024, 6, 1, 12, 0)
+
+        val TABLE_SCAN = Regex("SCAN (TABLE )?(\\w+)( AS \\w+)?")
+
+        // A handful of rows each; read whole where a query needs them (e.g. the reminder lead time)
+        val SMALL_TABLES = setOf("accounts", "bills", "income")
+
+        // The tables Room created for the version 5 entities
+        val VERSION_5_SCHEMA = listOf(
+            "CREATE TABLE IF NOT EXISTS `accounts` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, " +
+                "`type` TEXT NOT NULL, `startingBalance` REAL NOT NULL, `currentBalance` REAL NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `income` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, " +
+                "`amount` REAL NOT NULL, `recurrenceType` TEXT NOT NULL, `startDate` TEXT NOT NULL, `accountId` INTEGER NOT NULL, " +
+                "`isActive` INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `income_overrides` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `incomeId` INTEGER NOT NULL, " +
+                "`date` TEXT NOT NULL, `amount` REAL NOT NULL, " +
+                "FOREIGN KEY(`incomeId`) REFERENCES `income`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE TABLE IF NOT EXISTS `bills` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, " +
+                "`amount` REAL NOT NULL, `recurrenceType` TEXT NOT NULL, `startDate` TEXT NOT NULL, `endDate` TEXT, " +
+                "`accountId` INTEGER, `isActive` INTEGER NOT NULL, `reminderDaysBefore` INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `bill_overrides` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `billId` INTEGER NOT NULL, " +
+                "`date` TEXT NOT NULL, `amount` REAL NOT NULL, " +
+                "FOREIGN KEY(`billId`) REFERENCES `bills`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE TABLE IF NOT EXISTS `bill_payments` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `billId` INTEGER NOT NULL, " +
+                "`accountId` INTEGER NOT NULL, `paymentDate` TEXT NOT NULL, `amount` REAL NOT NULL, `timestamp` TEXT NOT NULL, " +
+                "`transactionId` INTEGER, " +
+                "FOREIGN KEY(`billId`) REFERENCES `bills`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE TABLE IF NOT EXISTS `transactions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `accountId` INTEGER NOT NULL, " +
+                "`toAccountId` INTEGER, `type` TEXT NOT NULL, `amount` REAL NOT NULL, `date` TEXT NOT NULL, `timestamp` TEXT NOT NULL, " +
+                "`description` TEXT NOT NULL, `relatedBillId` INTEGER, `relatedIncomeId` INTEGER, " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`toAccountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )"
+        )
+    }
+}
@@ -14,6 +14,7 @@ import androidx.compose.runtime.setValue
 import androidx.compose.ui.Modifier
 import com.cashflow.app.ui.theme.CashFlowTheme
 import com.cashflow.app.ui.navigation.CashFlowNavigation
+import com.cashflow.app.work.OccurrenceWindowWorker
 
 class MainActivity : ComponentActivity() {
     private lateinit var prefs: SharedPreferences
@@ -21,6 +22,7 @@ class MainActivity : ComponentActivity() {
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         prefs = getSharedPreferences("cashflow_prefs", MODE_PRIVATE)
+        OccurrenceWindowWorker.schedule(applicationContext)
         
         setContent {
             var isDarkTheme by remember {
@@ -12,12 +12,23 @@ interface AccountDao {
     @Query("SELECT * FROM accounts WHERE id = :id")
     suspend fun getAccountById(id: Long): AccountEntity?
 
+    // Keyset page for streaming export: rows with id > afterId, in id order
+    @Query("SELECT * FROM accounts WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getAccountsAfter(afterId: Long, limit: Int): List<AccountEntity>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertAccount(account: AccountEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAccounts(accounts: List<AccountEntity>)
+
     @Update
     suspend fun updateAccount(account: AccountEntity)
 
+    // Applied in SQL so concurrent ledger writes can never lose an update
+    @Query("UPDATE accounts SET currentBalance = currentBalance + :delta WHERE id = :id")
+    suspend fun addToBalance(id: Long, delta: Double)
+
     @Delete
     suspend fun deleteAccount(account: AccountEntity)
     
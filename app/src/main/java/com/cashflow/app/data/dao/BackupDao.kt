@@ -0,0 +1,120 @@
+package com.cashflow.app.data.dao
+
+import androidx.room.*
+import com.cashflow.app.data.entity.*
+
+// Op codes in these queries follow ChangeOp: 0 upsert, 1 delete, 2 full backup, 3 incremental backup
+@Dao
+interface BackupDao {
+    // Every row a full backup writes, so imports can report progress from the first frame
+    @Query(
+        """
+        SELECT (SELECT COUNT(*) FROM accounts) + (SELECT COUNT(*) FROM income)
+            + (SELECT COUNT(*) FROM income_overrides) + (SELECT COUNT(*) FROM bills)
+            + (SELECT COUNT(*) FROM bill_overrides) + (SELECT COUNT(*) FROM transactions)
+            + (SELECT COUNT(*) FROM bill_payments)
+        """
+    )
+    suspend fun countRows(): Int
+
+    // Change log
+    @Insert
+    suspend fun insertChange(change: ChangeLogEntity): Long
+
+    @Query("SELECT * FROM change_log ORDER BY sequence DESC LIMIT 1")
+    suspend fun getLastChange(): ChangeLogEntity?
+
+    @Query("SELECT * FROM change_log WHERE entity IS NULL ORDER BY sequence DESC LIMIT 1")
+    suspend fun getLastMarker(): ChangeLogEntity?
+
+    @Query(
+        """
+        SELECT COUNT(*) FROM change_log
+        WHERE op = 3 AND sequence > COALESCE((SELECT MAX(sequence) FROM change_log WHERE op = 2), 0)
+        """
+    )
+    suspend fun countIncrementsSinceFullBackup(): Int
+
+    // Trims entries an earlier backup already covers; a full backup also drops the older markers
+    @Query("DELETE FROM change_log WHERE sequence < :sequence AND (entity IS NOT NULL OR :dropMarkers)")
+    suspend fun trimChangesBefore(sequence: Long, dropMarkers: Boolean)
+
+    @Query("DELETE FROM change_log")
+    suspend fun deleteAllChanges()
+
+    // Rows an incremental backup writes: those still present after changing, and those deleted
+    @Query(
+        """
+        SELECT (SELECT COUNT(*) FROM accounts WHERE id IN (SELECT entityId FROM change_log WHERE entity = 0 AND sequence > :since))
+            + (SELECT COUNT(*) FROM income WHERE id IN (SELECT entityId FROM change_log WHERE entity = 1 AND sequence > :since))
+            + (SELECT COUNT(*) FROM income_overrides WHERE id IN (SELECT entityId FROM change_log WHERE entity = 2 AND sequence > :since))
+            + (SELECT COUNT(*) FROM bills WHERE id IN (SELECT entityId FROM change_log WHERE entity = 3 AND sequence > :since))
+            + (SELECT COUNT(*) FROM bill_overrides WHERE id IN (SELECT entityId FROM change_log WHERE entity = 4 AND sequence > :since))
+            + (SELECT COUNT(*) FROM transactions WHERE id IN (SELECT entityId FROM change_log WHERE entity = 5 AND sequence > :since))
+            + (SELECT COUNT(*) FROM bill_payments WHERE id IN (SELECT entityId FROM change_log WHERE entity = 6 AND sequence > :since))
+            + (SELECT COUNT(*) FROM (SELECT DISTINCT entity, entityId FROM change_log WHERE op = 1 AND sequence > :since))
+        """
+    )
+    suspend fun countChangedRows(since: Long): Int
+
+    @Query("SELECT MAX(sequence) AS sequence, entity, entityId, op FROM change_log WHERE op = 1 AND sequence > :since GROUP BY entity, entityId ORDER BY entity, entityId")
+    suspend fun getDeletesSince(since: Long): List<ChangeLogEntity>
+
+    // Keyset pages of the rows changed since a sequence, like the get*After queries of each table's DAO
+    @Query("SELECT * FROM accounts WHERE id IN (SELECT entityId FROM change_log WHERE entity = 0 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedAccountsAfter(since: Long, afterId: Long, limit: Int): List<AccountEntity>
+
+    @Query("SELECT * FROM income WHERE id IN (SELECT entityId FROM change_log WHERE entity = 1 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedIncomeAfter(since: Long, afterId: Long, limit: Int): List<IncomeEntity>
+
+    @Query("SELECT * FROM income_overrides WHERE id IN (SELECT entityId FROM change_log WHERE entity = 2 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedIncomeOverridesAfter(since: Long, afterId: Long, limit: Int): List<IncomeOverrideEntity>
+
+    @Query("SELECT * FROM bills WHERE id IN (SELECT entityId FROM change_log WHERE entity = 3 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedBillsAfter(since: Long, afterId: Long, limit: Int): List<BillEntity>
+
+    @Query("SELECT * FROM bill_overrides WHERE id IN (SELECT entityId FROM change_log WHERE entity = 4 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedBillOverridesAfter(since: Long, afterId: Long, limit: Int): List<BillOverrideEntity>
+
+    @Query("SELECT * FROM transactions WHERE id IN (SELECT entityId FROM change_log WHERE entity = 5 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedTransactionsAfter(since: Long, afterId: Long, limit: Int): List<TransactionEntity>
+
+    @Query("SELECT * FROM bill_payments WHERE id IN (SELECT entityId FROM change_log WHERE entity = 6 AND sequence > :since) AND id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getChangedPaymentsAfter(since: Long, afterId: Long, limit: Int): List<BillPaymentEntity>
+
+    // Replaying an incremental backup. Parents are upserted rather than REPLACEd, which would
+    // delete the old row first and cascade the delete to its children. REPLACE's implicit delete
+    // also skips the delete triggers that keep the FTS tables in sync, so transactions upsert too.
+    @Upsert
+    suspend fun upsertAccounts(accounts: List<AccountEntity>)
+
+    @Upsert
+    suspend fun upsertIncome(income: List<IncomeEntity>)
+
+    @Upsert
+    suspend fun upsertBills(bills: List<BillEntity>)
+
+    @Upsert
+    suspend fun upsertTransactions(transactions: List<TransactionEntity>)
+
+    @Query("DELETE FROM accounts WHERE id IN (:ids)")
+    suspend fun deleteAccounts(ids: List<Long>)
+
+    @Query("DELETE FROM income WHERE id IN (:ids)")
+    suspend fun deleteIncome(ids: List<Long>)
+
+    @Query("DELETE FROM income_overrides WHERE id IN (:ids)")
+    suspend fun deleteIncomeOverrides(ids: List<Long>)
+
+    @Query("DELETE FROM bills WHERE id IN (:ids)")
+    suspend fun deleteBills(ids: List<Long>)
+
+    @Query("DELETE FROM bill_overrides WHERE id IN (:ids)")
+    suspend fun deleteBillOverrides(ids: List<Long>)
+
+    @Query("DELETE FROM transactions WHERE id IN (:ids)")
+    suspend fun deleteTransactions(ids: List<Long>)
+
+    @Query("DELETE FROM bill_payments WHERE id IN (:ids)")
+    suspend fun deletePayments(ids: List<Long>)
+}
@@ -0,0 +1,52 @@
+package com.cashflow.app.data.dao
+
+import androidx.room.*
+import com.cashflow.app.data.entity.BalanceCheckpointEntity
+import com.cashflow.app.data.entity.DailyBalanceChange
+import kotlinx.datetime.LocalDate
+
+// Change a transaction makes to :accountId, matching the repository's balance updates.
+// Types are TransactionType codes: 4 = TRANSFER, 1 = BILL_PAYMENT, 3 = CREDIT_CARD_PAYMENT
+private const val ACCOUNT_CHANGE = """
+    CASE
+        WHEN type = 4 THEN
+            (CASE WHEN toAccountId = :accountId THEN amount ELSE 0 END) -
+            (CASE WHEN accountId = :accountId AND toAccountId IS NOT NULL THEN amount ELSE 0 END)
+        WHEN accountId != :accountId THEN 0
+        WHEN type IN (1, 3) THEN -amount
+        ELSE amount
+    END
+"""
+
+@Dao
+interface BalanceCheckpointDao {
+    @Query("SELECT * FROM balance_checkpoints WHERE accountId = :accountId AND monthEnd = :monthEnd")
+    suspend fun getCheckpoint(accountId: Long, monthEnd: LocalDate): BalanceCheckpointEntity?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertCheckpoint(checkpoint: BalanceCheckpointEntity)
+
+    // A transaction dated :date moves every checkpoint at or after that date
+    @Query("UPDATE balance_checkpoints SET balance = balance + :change WHERE accountId = :accountId AND monthEnd >= :date")
+    suspend fun shiftCheckpoints(accountId: Long, date: LocalDate, change: Double)
+
+    @Query("DELETE FROM balance_checkpoints WHERE accountId = :accountId")
+    suspend fun deleteCheckpointsForAccount(accountId: Long)
+
+    @Query("DELETE FROM balance_checkpoints")
+    suspend fun deleteAllCheckpoints()
+
+    // Net change to the account from transactions dated after :after, up to and including :until
+    @Query(
+        "SELECT COALESCE(SUM($ACCOUNT_CHANGE), 0) FROM transactions " +
+            "WHERE (accountId = :accountId OR toAccountId = :accountId) AND date > :after AND date <= :until"
+    )
+    suspend fun getBalanceChangeBetween(accountId: Long, after: LocalDate, until: LocalDate): Double
+
+    @Query(
+        "SELECT date, SUM($ACCOUNT_CHANGE) AS change FROM transactions " +
+            "WHERE (accountId = :accountId OR toAccountId = :accountId) AND date BETWEEN :startDate AND :endDate " +
+            "GROUP BY date ORDER BY date"
+    )
+    suspend fun getDailyBalanceChanges(accountId: Long, startDate: LocalDate, endDate: LocalDate): List<DailyBalanceChange>
+}
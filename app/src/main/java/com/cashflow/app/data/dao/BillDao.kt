@@ -14,12 +14,22 @@ interface BillDao {
     @Query("SELECT * FROM bills ORDER BY startDate")
     fun getAllBills(): Flow<List<BillEntity>>
 
+    // Inactive rows included, for the repository's in-memory cache
+    @Query("SELECT * FROM bills")
+    suspend fun getBills(): List<BillEntity>
+
     @Query("SELECT * FROM bills WHERE id = :id")
     suspend fun getBillById(id: Long): BillEntity?
 
+    @Query("SELECT * FROM bills WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getBillsAfter(afterId: Long, limit: Int): List<BillEntity>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertBill(bill: BillEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertBills(bills: List<BillEntity>)
+
     @Update
     suspend fun updateBill(bill: BillEntity)
 
@@ -33,8 +43,14 @@ interface BillDao {
     @Query("SELECT * FROM bill_overrides WHERE billId = :billId")
     fun getOverridesForBill(billId: Long): Flow<List<BillOverrideEntity>>
 
+    @Query("SELECT * FROM bill_overrides WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getOverridesAfter(afterId: Long, limit: Int): List<BillOverrideEntity>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertOverride(override: BillOverrideEntity): Long
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertOverride(override: BillOverrideEntity)
+    suspend fun insertOverrides(overrides: List<BillOverrideEntity>)
 
     @Delete
     suspend fun deleteOverride(override: BillOverrideEntity)
@@ -16,9 +16,15 @@ interface BillPaymentDao {
     @Query("SELECT * FROM bill_payments WHERE paymentDate = :date")
     fun getPaymentsForDate(date: LocalDate): Flow<List<BillPaymentEntity>>
 
+    @Query("SELECT * FROM bill_payments WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getPaymentsAfter(afterId: Long, limit: Int): List<BillPaymentEntity>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertPayment(payment: BillPaymentEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertPayments(payments: List<BillPaymentEntity>)
+
     @Delete
     suspend fun deletePayment(payment: BillPaymentEntity)
     
@@ -14,12 +14,22 @@ interface IncomeDao {
     @Query("SELECT * FROM income ORDER BY startDate")
     fun getAllIncome(): Flow<List<IncomeEntity>>
 
+    // Inactive rows included, for the repository's in-memory cache
+    @Query("SELECT * FROM income")
+    suspend fun getIncome(): List<IncomeEntity>
+
     @Query("SELECT * FROM income WHERE id = :id")
     suspend fun getIncomeById(id: Long): IncomeEntity?
 
+    @Query("SELECT * FROM income WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getIncomeAfter(afterId: Long, limit: Int): List<IncomeEntity>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertIncome(income: IncomeEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAllIncome(income: List<IncomeEntity>)
+
     @Update
     suspend fun updateIncome(income: IncomeEntity)
 
@@ -33,8 +43,14 @@ interface IncomeDao {
     @Query("SELECT * FROM income_overrides WHERE incomeId = :incomeId")
     fun getOverridesForIncome(incomeId: Long): Flow<List<IncomeOverrideEntity>>
 
+    @Query("SELECT * FROM income_overrides WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getOverridesAfter(afterId: Long, limit: Int): List<IncomeOverrideEntity>
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertOverride(override: IncomeOverrideEntity): Long
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertOverride(override: IncomeOverrideEntity)
+    suspend fun insertOverrides(overrides: List<IncomeOverrideEntity>)
 
     @Delete
     suspend fun deleteOverride(override: IncomeOverrideEntity)
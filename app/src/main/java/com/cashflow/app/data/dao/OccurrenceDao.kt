@@ -0,0 +1,84 @@
+package com.cashflow.app.data.dao
+
+import androidx.room.*
+import com.cashflow.app.data.entity.OccurrenceEntity
+import com.cashflow.app.data.entity.OccurrenceWindowEntity
+import com.cashflow.app.data.model.OccurrenceSource
+import kotlinx.datetime.LocalDate
+
+// Codes in these queries follow OccurrenceSource (0 bill, 1 income), OccurrenceStatus (0 pending,
+// 1 settled) and TransactionType (0 income)
+@Dao
+interface OccurrenceDao {
+    @Query("SELECT * FROM occurrence_window WHERE id = 0")
+    suspend fun getWindow(): OccurrenceWindowEntity?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun setWindow(window: OccurrenceWindowEntity)
+
+    @Query("DELETE FROM occurrence_window")
+    suspend fun deleteWindow()
+
+    @Query("SELECT * FROM occurrences WHERE sourceType = :sourceType AND dueDate BETWEEN :startDate AND :endDate ORDER BY dueDate, sourceId")
+    suspend fun getOccurrencesBetween(sourceType: OccurrenceSource, startDate: LocalDate, endDate: LocalDate): List<OccurrenceEntity>
+
+    // Unpaid bill occurrences from today up to each bill's own reminder lead time
+    @Query(
+        """
+        SELECT o.* FROM occurrences AS o JOIN bills AS b ON b.id = o.sourceId
+        WHERE o.status = 0
+            AND o.dueDate BETWEEN :today AND :today + (SELECT MAX(reminderDaysBefore) FROM bills WHERE isActive = 1)
+            AND o.sourceType = 0 AND o.dueDate - :today <= b.reminderDaysBefore
+        ORDER BY o.dueDate, o.sourceId
+        """
+    )
+    suspend fun getDueBillReminders(today: LocalDate): List<OccurrenceEntity>
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertOccurrences(occurrences: List<OccurrenceEntity>)
+
+    @Query("DELETE FROM occurrences WHERE sourceType = :sourceType AND sourceId = :sourceId")
+    suspend fun deleteOccurrences(sourceType: OccurrenceSource, sourceId: Long)
+
+    @Query("DELETE FROM occurrences WHERE dueDate < :date")
+    suspend fun deleteOccurrencesBefore(date: LocalDate)
+
+    @Query("DELETE FROM occurrences")
+    suspend fun deleteAllOccurrences()
+
+    // Folds overrides and payments into freshly written bill rows, for the ids in [firstId, lastId]
+    // (one bill, or 0 to Long.MAX_VALUE for all of them). The triggers keep the rows current afterwards.
+    @Query(
+        """
+        UPDATE occurrences SET
+            amount = COALESCE((SELECT o.amount FROM bill_overrides AS o
+                WHERE o.billId = occurrences.sourceId AND o.date = occurrences.dueDate), amount),
+            status = EXISTS (SELECT 1 FROM bill_payments AS p
+                WHERE p.billId = occurrences.sourceId AND p.paymentDate = occurrences.dueDate),
+            linkId = (SELECT p.id FROM bill_payments AS p
+                WHERE p.billId = occurrences.sourceId AND p.paymentDate = occurrences.dueDate),
+            accountId = (SELECT p.accountId FROM bill_payments AS p
+                WHERE p.billId = occurrences.sourceId AND p.paymentDate = occurrences.dueDate)
+        WHERE sourceType = 0 AND sourceId BETWEEN :firstId AND :lastId AND dueDate BETWEEN :startDate AND :endDate
+        """
+    )
+    suspend fun reconcileBillOccurrences(firstId: Long, lastId: Long, startDate: LocalDate, endDate: LocalDate)
+
+    // As above for income; the newest income transaction on the day marks the occurrence received
+    @Query(
+        """
+        UPDATE occurrences SET
+            amount = COALESCE((SELECT o.amount FROM income_overrides AS o
+                WHERE o.incomeId = occurrences.sourceId AND o.date = occurrences.dueDate), amount),
+            status = EXISTS (SELECT 1 FROM transactions AS t
+                WHERE t.type = 0 AND t.relatedIncomeId = occurrences.sourceId AND t.date = occurrences.dueDate),
+            linkId = (SELECT MAX(t.id) FROM transactions AS t
+                WHERE t.type = 0 AND t.relatedIncomeId = occurrences.sourceId AND t.date = occurrences.dueDate),
+            accountId = (SELECT t.accountId FROM transactions AS t
+                WHERE t.type = 0 AND t.relatedIncomeId = occurrences.sourceId AND t.date = occurrences.dueDate
+                ORDER BY t.id DESC LIMIT 1)
+        WHERE sourceType = 1 AND sourceId BETWEEN :firstId AND :lastId AND dueDate BETWEEN :startDate AND :endDate
+        """
+    )
+    suspend fun reconcileIncomeOccurrences(firstId: Long, lastId: Long, startDate: LocalDate, endDate: LocalDate)
+}
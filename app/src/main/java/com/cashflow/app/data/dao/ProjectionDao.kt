@@ -0,0 +1,42 @@
+package com.cashflow.app.data.dao
+
+import androidx.room.*
+import com.cashflow.app.data.entity.*
+import kotlinx.datetime.LocalDate
+
+@Dao
+interface ProjectionDao {
+    @Query("SELECT * FROM accounts ORDER BY name")
+    suspend fun getAccounts(): List<AccountEntity>
+
+    @Query("SELECT * FROM income WHERE isActive = 1 ORDER BY startDate")
+    suspend fun getActiveIncome(): List<IncomeEntity>
+
+    @Query("SELECT * FROM bills WHERE isActive = 1 ORDER BY startDate")
+    suspend fun getActiveBills(): List<BillEntity>
+
+    @Query("SELECT * FROM income_overrides WHERE date BETWEEN :startDate AND :endDate")
+    suspend fun getIncomeOverridesBetween(startDate: LocalDate, endDate: LocalDate): List<IncomeOverrideEntity>
+
+    @Query("SELECT * FROM bill_overrides WHERE date BETWEEN :startDate AND :endDate")
+    suspend fun getBillOverridesBetween(startDate: LocalDate, endDate: LocalDate): List<BillOverrideEntity>
+
+    @Query("SELECT * FROM bill_payments WHERE paymentDate BETWEEN :startDate AND :endDate")
+    suspend fun getPaymentsBetween(startDate: LocalDate, endDate: LocalDate): List<BillPaymentEntity>
+
+    @Query("SELECT * FROM transactions WHERE date BETWEEN :startDate AND :endDate ORDER BY date DESC, timestamp DESC")
+    suspend fun getTransactionsBetween(startDate: LocalDate, endDate: LocalDate): List<TransactionEntity>
+
+    // Everything a projection needs, read in one consistent transaction
+    @Transaction
+    suspend fun loadSnapshot(startDate: LocalDate, endDate: LocalDate): ProjectionRows =
+        ProjectionRows(
+            accounts = getAccounts(),
+            income = getActiveIncome(),
+            bills = getActiveBills(),
+            incomeOverrides = getIncomeOverridesBetween(startDate, endDate),
+            billOverrides = getBillOverridesBetween(startDate, endDate),
+            billPayments = getPaymentsBetween(startDate, endDate),
+            transactions = getTransactionsBetween(startDate, endDate)
+        )
+}
@@ -0,0 +1,29 @@
+package com.cashflow.app.data.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import com.cashflow.app.data.entity.MonthlyTypeTotal
+import kotlinx.coroutines.flow.Flow
+
+// Month keys are year * 100 + month number; ranges are inclusive
+@Dao
+interface ReportDao {
+    // A few rows per account and month, whatever the size of the ledger
+    @Query(
+        """
+        SELECT month, type, SUM(count) AS count, TOTAL(total) AS total FROM monthly_rollup
+        WHERE month BETWEEN :fromMonth AND :toMonth
+        GROUP BY month, type ORDER BY month, type
+        """
+    )
+    fun observeMonthlyTotals(fromMonth: Int, toMonth: Int): Flow<List<MonthlyTypeTotal>>
+
+    @Query(
+        """
+        SELECT month, type, count, total FROM monthly_rollup
+        WHERE accountId = :accountId AND month BETWEEN :fromMonth AND :toMonth
+        ORDER BY month, type
+        """
+    )
+    fun observeMonthlyTotalsForAccount(accountId: Long, fromMonth: Int, toMonth: Int): Flow<List<MonthlyTypeTotal>>
+}
@@ -0,0 +1,35 @@
+package com.cashflow.app.data.dao
+
+import androidx.paging.PagingSource
+import androidx.room.Dao
+import androidx.room.Query
+import com.cashflow.app.data.entity.SearchHitRow
+
+@Dao
+interface SearchDao {
+    // Matches across the three FTS4 tables. hits counts the matched terms in a row (offsets() lists
+    // four numbers per match); rows rank by hits per character of title, so "Rent" outranks
+    // "Rent payment for the rental unit", then newest first.
+    @Query(
+        """
+        SELECT * FROM (
+            SELECT 0 AS kind, t.id, t.description AS title, t.amount, t.date,
+                (length(offsets(transactions_fts)) - length(replace(offsets(transactions_fts), ' ', '')) + 1) / 4 AS hits
+            FROM transactions_fts JOIN transactions AS t ON t.id = transactions_fts.rowid
+            WHERE transactions_fts MATCH :query
+            UNION ALL
+            SELECT 1 AS kind, b.id, b.name AS title, b.amount, b.startDate AS date,
+                (length(offsets(bills_fts)) - length(replace(offsets(bills_fts), ' ', '')) + 1) / 4 AS hits
+            FROM bills_fts JOIN bills AS b ON b.id = bills_fts.rowid
+            WHERE bills_fts MATCH :query
+            UNION ALL
+            SELECT 2 AS kind, i.id, i.name AS title, i.amount, i.startDate AS date,
+                (length(offsets(income_fts)) - length(replace(offsets(income_fts), ' ', '')) + 1) / 4 AS hits
+            FROM income_fts JOIN income AS i ON i.id = income_fts.rowid
+            WHERE income_fts MATCH :query
+        )
+        ORDER BY hits * 1.0 / length(title) DESC, date DESC, kind, id
+        """
+    )
+    fun search(query: String): PagingSource<Int, SearchHitRow>
+}
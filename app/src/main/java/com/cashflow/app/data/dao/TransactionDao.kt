@@ -1,17 +1,20 @@
 package com.cashflow.app.data.dao
 
 import androidx.room.*
+import androidx.sqlite.db.SupportSQLiteQuery
 import com.cashflow.app.data.entity.TransactionEntity
+import com.cashflow.app.data.entity.TransactionTypeTotal
 import kotlinx.coroutines.flow.Flow
 import kotlinx.datetime.LocalDate
 
 @Dao
 interface TransactionDao {
-    @Query("SELECT * FROM transactions ORDER BY date DESC, timestamp DESC")
-    fun getAllTransactions(): Flow<List<TransactionEntity>>
+    // Filtered keyset pages and totals, compiled by TransactionFilterQuery
+    @RawQuery
+    suspend fun getTransactions(query: SupportSQLiteQuery): List<TransactionEntity>
 
-    @Query("SELECT * FROM transactions WHERE accountId = :accountId ORDER BY date DESC, timestamp DESC")
-    fun getTransactionsForAccount(accountId: Long): Flow<List<TransactionEntity>>
+    @RawQuery(observedEntities = [TransactionEntity::class])
+    fun observeTotals(query: SupportSQLiteQuery): Flow<List<TransactionTypeTotal>>
 
     @Query("SELECT * FROM transactions WHERE date BETWEEN :startDate AND :endDate ORDER BY date DESC, timestamp DESC")
     fun getTransactionsBetween(startDate: LocalDate, endDate: LocalDate): Flow<List<TransactionEntity>>
@@ -19,9 +22,15 @@ interface TransactionDao {
     @Query("SELECT * FROM transactions WHERE id = :id")
     suspend fun getTransactionById(id: Long): TransactionEntity?
 
+    @Query("SELECT * FROM transactions WHERE id > :afterId ORDER BY id LIMIT :limit")
+    suspend fun getTransactionsAfter(afterId: Long, limit: Int): List<TransactionEntity>
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertTransaction(transaction: TransactionEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertTransactions(transactions: List<TransactionEntity>)
+
     @Update
     suspend fun updateTransaction(transaction: TransactionEntity)
 
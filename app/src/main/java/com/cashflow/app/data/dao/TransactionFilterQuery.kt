@@ -0,0 +1,78 @@
+package com.cashflow.app.data.dao
+
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteQuery
+import com.cashflow.app.data.database.Converters
+import com.cashflow.app.domain.model.TransactionFilter
+import kotlinx.datetime.LocalDate
+import kotlinx.datetime.LocalDateTime
+
+/**
+ * Compiles a [TransactionFilter] into parameterized SQL for TransactionDao's raw queries.
+ *
+ * Filter values only ever travel as bind arguments, encoded the way [Converters] stores them, so
+ * the SQL text depends on which conditions are set and never on their values. Pages use the same
+ * (date, timestamp, id) keyset as the list order; the transactions indices lead with accountId,
+ * type, relatedBillId or relatedIncomeId and continue with (date, timestamp), so a filtered page
+ * can still be read off an index in order.
+ */
+class TransactionFilterQuery(filter: TransactionFilter) {
+    private val conditions = mutableListOf<String>()
+    private val args = mutableListOf<Any>()
+
+    init {
+        filter.accountId?.let { where("accountId = ?", it) }
+        if (filter.types.isNotEmpty()) {
+            conditions += filter.types.joinToString(", ", "type IN (", ")") { "?" }
+            filter.types.forEach { args += converters.fromTransactionType(it) }
+        }
+        filter.relatedBillId?.let { where("relatedBillId = ?", it) }
+        filter.relatedIncomeId?.let { where("relatedIncomeId = ?", it) }
+        filter.startDate?.let { where("date >= ?", converters.fromLocalDate(it)) }
+        filter.endDate?.let { where("date <= ?", converters.fromLocalDate(it)) }
+        filter.minAmount?.let { where("amount >= ?", it) }
+        filter.maxAmount?.let { where("amount <= ?", it) }
+    }
+
+    // Newest first
+    fun latest(limit: Int): SupportSQLiteQuery = page(null, emptyList(), NEWEST_FIRST, limit)
+
+    fun olderThan(date: LocalDate, timestamp: LocalDateTime, id: Long, limit: Int): SupportSQLiteQuery =
+        page("date <= ? AND (date < ? OR timestamp < ? OR (timestamp = ? AND id < ?))", keyArgs(date, timestamp, id), NEWEST_FIRST, limit)
+
+    // Oldest first, nearest the key first; callers reverse the page
+    fun newerThan(date: LocalDate, timestamp: LocalDateTime, id: Long, limit: Int): SupportSQLiteQuery =
+        page("date >= ? AND (date > ? OR timestamp > ? OR (timestamp = ? AND id > ?))", keyArgs(date, timestamp, id), OLDEST_FIRST, limit)
+
+    // Rows for TransactionTypeTotal
+    fun totals(): SupportSQLiteQuery = SimpleSQLiteQuery(
+        "SELECT type, COUNT(*) AS count, TOTAL(amount) AS amount FROM transactions${whereClause(conditions)} GROUP BY type",
+        args.toTypedArray()
+    )
+
+    private fun where(condition: String, arg: Any) {
+        conditions += condition
+        args += arg
+    }
+
+    private fun page(keyset: String?, keysetArgs: List<Any>, order: String, limit: Int): SupportSQLiteQuery =
+        SimpleSQLiteQuery(
+            "SELECT * FROM transactions${whereClause(conditions + listOfNotNull(keyset))} ORDER BY $order LIMIT ?",
+            (args + keysetArgs + limit).toTypedArray()
+        )
+
+    private fun keyArgs(date: LocalDate, timestamp: LocalDateTime, id: Long): List<Any> {
+        val day = converters.fromLocalDate(date)
+        val millis = converters.fromLocalDateTime(timestamp)
+        return listOf(day, day, millis, millis, id)
+    }
+
+    private fun whereClause(conditions: List<String>): String =
+        if (conditions.isEmpty()) "" else conditions.joinToString(" AND ", " WHERE ")
+
+    private companion object {
+        val converters = Converters()
+        const val NEWEST_FIRST = "date DESC, timestamp DESC, id DESC"
+        const val OLDEST_FIRST = "date, timestamp, id"
+    }
+}
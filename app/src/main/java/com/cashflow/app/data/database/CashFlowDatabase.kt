@@ -4,9 +4,15 @@ import androidx.room.Database
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
 import com.cashflow.app.data.dao.AccountDao
+import com.cashflow.app.data.dao.BackupDao
+import com.cashflow.app.data.dao.BalanceCheckpointDao
 import com.cashflow.app.data.dao.BillDao
 import com.cashflow.app.data.dao.BillPaymentDao
 import com.cashflow.app.data.dao.IncomeDao
+import com.cashflow.app.data.dao.OccurrenceDao
+import com.cashflow.app.data.dao.ProjectionDao
+import com.cashflow.app.data.dao.ReportDao
+import com.cashflow.app.data.dao.SearchDao
 import com.cashflow.app.data.dao.TransactionDao
 import com.cashflow.app.data.entity.*
 
@@ -18,9 +24,17 @@ import com.cashflow.app.data.entity.*
         BillEntity::class,
         BillOverrideEntity::class,
         BillPaymentEntity::class,
-        TransactionEntity::class
+        TransactionEntity::class,
+        BalanceCheckpointEntity::class,
+        ChangeLogEntity::class,
+        TransactionFtsEntity::class,
+        BillFtsEntity::class,
+        IncomeFtsEntity::class,
+        MonthlyRollupEntity::class,
+        OccurrenceEntity::class,
+        OccurrenceWindowEntity::class
     ],
-    version = 5,
+    version = 13,
     exportSchema = false
 )
 @TypeConverters(Converters::class)
@@ -30,5 +44,11 @@ abstract class CashFlowDatabase : RoomDatabase() {
     abstract fun billDao(): BillDao
     abstract fun billPaymentDao(): BillPaymentDao
     abstract fun transactionDao(): TransactionDao
+    abstract fun projectionDao(): ProjectionDao
+    abstract fun balanceCheckpointDao(): BalanceCheckpointDao
+    abstract fun backupDao(): BackupDao
+    abstract fun searchDao(): SearchDao
+    abstract fun reportDao(): ReportDao
+    abstract fun occurrenceDao(): OccurrenceDao
 }
 
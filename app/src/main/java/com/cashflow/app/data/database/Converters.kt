@@ -2,40 +2,73 @@ package com.cashflow.app.data.database
 
 import androidx.room.TypeConverter
 import com.cashflow.app.data.model.AccountType
+import com.cashflow.app.data.model.BackupTable
+import com.cashflow.app.data.model.ChangeOp
+import com.cashflow.app.data.model.OccurrenceSource
+import com.cashflow.app.data.model.OccurrenceStatus
 import com.cashflow.app.data.model.RecurrenceType
 import com.cashflow.app.data.model.TransactionType
+import kotlinx.datetime.Instant
 import kotlinx.datetime.LocalDate
 import kotlinx.datetime.LocalDateTime
+import kotlinx.datetime.TimeZone
+import kotlinx.datetime.toInstant
+import kotlinx.datetime.toLocalDateTime
 
 class Converters {
     @TypeConverter
-    fun fromAccountType(value: AccountType): String = value.name
+    fun fromAccountType(value: AccountType): Int = value.code
 
     @TypeConverter
-    fun toAccountType(value: String): AccountType = AccountType.valueOf(value)
+    fun toAccountType(value: Int): AccountType = AccountType.fromCode(value)
 
     @TypeConverter
-    fun fromRecurrenceType(value: RecurrenceType): String = value.name
+    fun fromRecurrenceType(value: RecurrenceType): Int = value.code
 
     @TypeConverter
-    fun toRecurrenceType(value: String): RecurrenceType = RecurrenceType.valueOf(value)
+    fun toRecurrenceType(value: Int): RecurrenceType = RecurrenceType.fromCode(value)
 
     @TypeConverter
-    fun fromTransactionType(value: TransactionType): String = value.name
+    fun fromTransactionType(value: TransactionType): Int = value.code
 
     @TypeConverter
-    fun toTransactionType(value: String): TransactionType = TransactionType.valueOf(value)
+    fun toTransactionType(value: Int): TransactionType = TransactionType.fromCode(value)
 
     @TypeConverter
-    fun fromLocalDate(value: LocalDate): String = value.toString()
+    fun fromBackupTable(value: BackupTable): Int = value.code
 
     @TypeConverter
-    fun toLocalDate(value: String): LocalDate = LocalDate.parse(value)
+    fun toBackupTable(value: Int): BackupTable = BackupTable.fromCode(value)
 
     @TypeConverter
-    fun fromLocalDateTime(value: LocalDateTime): String = value.toString()
+    fun fromChangeOp(value: ChangeOp): Int = value.code
 
     @TypeConverter
-    fun toLocalDateTime(value: String): LocalDateTime = LocalDateTime.parse(value)
-}
+    fun toChangeOp(value: Int): ChangeOp = ChangeOp.fromCode(value)
+
+    @TypeConverter
+    fun fromOccurrenceSource(value: OccurrenceSource): Int = value.code
+
+    @TypeConverter
+    fun toOccurrenceSource(value: Int): OccurrenceSource = OccurrenceSource.fromCode(value)
+
+    @TypeConverter
+    fun fromOccurrenceStatus(value: OccurrenceStatus): Int = value.code
+
+    @TypeConverter
+    fun toOccurrenceStatus(value: Int): OccurrenceStatus = OccurrenceStatus.fromCode(value)
 
+    // Epoch day
+    @TypeConverter
+    fun fromLocalDate(value: LocalDate): Int = value.toEpochDays()
+
+    @TypeConverter
+    fun toLocalDate(value: Int): LocalDate = LocalDate.fromEpochDays(value)
+
+    // Epoch millis of the wall-clock time read as UTC, so values round-trip whatever the device zone
+    @TypeConverter
+    fun fromLocalDateTime(value: LocalDateTime): Long = value.toInstant(TimeZone.UTC).toEpochMilliseconds()
+
+    @TypeConverter
+    fun toLocalDateTime(value: Long): LocalDateTime = Instant.fromEpochMilliseconds(value).toLocalDateTime(TimeZone.UTC)
+}
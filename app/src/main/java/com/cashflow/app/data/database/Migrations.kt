@@ -0,0 +1,334 @@
+package com.cashflow.app.data.database
+
+import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+val MIGRATION_5_6 = object : Migration(5, 6) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Checkpoints are derived data; they are filled in lazily on the first balance lookup
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `balance_checkpoints` (" +
+                "`accountId` INTEGER NOT NULL, `monthEnd` TEXT NOT NULL, `balance` REAL NOT NULL, " +
+                "PRIMARY KEY(`accountId`, `monthEnd`), " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )"
+        )
+    }
+}
+
+val MIGRATION_6_7 = object : Migration(6, 7) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Older versions could store several overrides/payments for one occurrence; keep the newest
+        // row of each so the unique indices below can be created
+        db.execSQL("DELETE FROM `bill_overrides` WHERE `id` NOT IN (SELECT MAX(`id`) FROM `bill_overrides` GROUP BY `billId`, `date`)")
+        db.execSQL("DELETE FROM `income_overrides` WHERE `id` NOT IN (SELECT MAX(`id`) FROM `income_overrides` GROUP BY `incomeId`, `date`)")
+        db.execSQL("DELETE FROM `bill_payments` WHERE `id` NOT IN (SELECT MAX(`id`) FROM `bill_payments` GROUP BY `billId`, `paymentDate`)")
+
+        createIndices(db)
+    }
+}
+
+val MIGRATION_7_8 = object : Migration(7, 8) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Dates become epoch days, timestamps epoch millis (wall-clock time read as UTC) and enums
+        // their persisted codes. SQLite cannot change column types, so every table is recreated.
+        // Foreign keys are not enforced until the database is opened, so the drops do not cascade.
+        db.recreateTable(
+            "accounts",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, `type` INTEGER NOT NULL, " +
+                "`startingBalance` REAL NOT NULL, `currentBalance` REAL NOT NULL",
+            "`id`, `name`, `type`, `startingBalance`, `currentBalance`",
+            "`id`, `name`, ${code("type", "SAVINGS", "CHECKING", "CREDIT_CARD")}, `startingBalance`, `currentBalance`"
+        )
+        db.recreateTable(
+            "income",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, `amount` REAL NOT NULL, " +
+                "`recurrenceType` INTEGER NOT NULL, `startDate` INTEGER NOT NULL, `accountId` INTEGER NOT NULL, " +
+                "`isActive` INTEGER NOT NULL",
+            "`id`, `name`, `amount`, `recurrenceType`, `startDate`, `accountId`, `isActive`",
+            "`id`, `name`, `amount`, ${code("recurrenceType", *RECURRENCE_TYPES)}, ${epochDay("startDate")}, `accountId`, `isActive`"
+        )
+        db.recreateTable(
+            "income_overrides",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `incomeId` INTEGER NOT NULL, `date` INTEGER NOT NULL, " +
+                "`amount` REAL NOT NULL, " +
+                "FOREIGN KEY(`incomeId`) REFERENCES `income`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE ",
+            "`id`, `incomeId`, `date`, `amount`",
+            "`id`, `incomeId`, ${epochDay("date")}, `amount`"
+        )
+        db.recreateTable(
+            "bills",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL, `amount` REAL NOT NULL, " +
+                "`recurrenceType` INTEGER NOT NULL, `startDate` INTEGER NOT NULL, `endDate` INTEGER, " +
+                "`accountId` INTEGER, `isActive` INTEGER NOT NULL, `reminderDaysBefore` INTEGER NOT NULL",
+            "`id`, `name`, `amount`, `recurrenceType`, `startDate`, `endDate`, `accountId`, `isActive`, `reminderDaysBefore`",
+            "`id`, `name`, `amount`, ${code("recurrenceType", *RECURRENCE_TYPES)}, ${epochDay("startDate")}, " +
+                "${epochDay("endDate")}, `accountId`, `isActive`, `reminderDaysBefore`"
+        )
+        db.recreateTable(
+            "bill_overrides",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `billId` INTEGER NOT NULL, `date` INTEGER NOT NULL, " +
+                "`amount` REAL NOT NULL, " +
+                "FOREIGN KEY(`billId`) REFERENCES `bills`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE ",
+            "`id`, `billId`, `date`, `amount`",
+            "`id`, `billId`, ${epochDay("date")}, `amount`"
+        )
+        db.recreateTable(
+            "bill_payments",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `billId` INTEGER NOT NULL, `accountId` INTEGER NOT NULL, " +
+                "`paymentDate` INTEGER NOT NULL, `amount` REAL NOT NULL, `timestamp` INTEGER NOT NULL, `transactionId` INTEGER, " +
+                "FOREIGN KEY(`billId`) REFERENCES `bills`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE ",
+            "`id`, `billId`, `accountId`, `paymentDate`, `amount`, `timestamp`, `transactionId`",
+            "`id`, `billId`, `accountId`, ${epochDay("paymentDate")}, `amount`, ${epochMillis("timestamp")}, `transactionId`"
+        )
+        db.recreateTable(
+            "transactions",
+            "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `accountId` INTEGER NOT NULL, `toAccountId` INTEGER, " +
+                "`type` INTEGER NOT NULL, `amount` REAL NOT NULL, `date` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, " +
+                "`description` TEXT NOT NULL, `relatedBillId` INTEGER, `relatedIncomeId` INTEGER, " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , " +
+                "FOREIGN KEY(`toAccountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE ",
+            "`id`, `accountId`, `toAccountId`, `type`, `amount`, `date`, `timestamp`, `description`, `relatedBillId`, `relatedIncomeId`",
+            "`id`, `accountId`, `toAccountId`, " +
+                code("type", "INCOME", "BILL_PAYMENT", "MANUAL_ADJUSTMENT", "CREDIT_CARD_PAYMENT", "TRANSFER") + ", " +
+                "`amount`, ${epochDay("date")}, ${epochMillis("timestamp")}, `description`, `relatedBillId`, `relatedIncomeId`"
+        )
+
+        // Checkpoints are derived data and refill lazily
+        db.execSQL("DROP TABLE `balance_checkpoints`")
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `balance_checkpoints` (" +
+                "`accountId` INTEGER NOT NULL, `monthEnd` INTEGER NOT NULL, `balance` REAL NOT NULL, " +
+                "PRIMARY KEY(`accountId`, `monthEnd`), " +
+                "FOREIGN KEY(`accountId`) REFERENCES `accounts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )"
+        )
+
+        createIndices(db)
+    }
+}
+
+val MIGRATION_8_9 = object : Migration(8, 9) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Starts empty, so the first backup after upgrading is a full one
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `change_log` (" +
+                "`sequence` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `entity` INTEGER, " +
+                "`entityId` INTEGER NOT NULL, `op` INTEGER NOT NULL)"
+        )
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_change_log_entity_entityId` ON `change_log` (`entity`, `entityId`)")
+    }
+}
+
+val MIGRATION_9_10 = object : Migration(9, 10) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Filtered transaction pages: each filterable column leads an index that continues in list order
+        db.execSQL("DROP INDEX IF EXISTS `index_transactions_relatedBillId`")
+        db.execSQL("DROP INDEX IF EXISTS `index_transactions_relatedIncomeId`")
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_type_date_timestamp` ON `transactions` (`type`, `date`, `timestamp`)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_relatedBillId_date_timestamp` ON `transactions` (`relatedBillId`, `date`, `timestamp`)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_relatedIncomeId_date_timestamp` ON `transactions` (`relatedIncomeId`, `date`, `timestamp`)")
+    }
+}
+
+val MIGRATION_10_11 = object : Migration(10, 11) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        createContentFts(db, "transactions_fts", "transactions", "description")
+        createContentFts(db, "bills_fts", "bills", "name")
+        createContentFts(db, "income_fts", "income", "name")
+    }
+}
+
+val MIGRATION_11_12 = object : Migration(11, 12) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `monthly_rollup` (" +
+                "`accountId` INTEGER NOT NULL, `month` INTEGER NOT NULL, `type` INTEGER NOT NULL, " +
+                "`count` INTEGER NOT NULL, `total` REAL NOT NULL, PRIMARY KEY(`accountId`, `month`, `type`))"
+        )
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_monthly_rollup_month` ON `monthly_rollup` (`month`)")
+        db.execSQL(
+            "INSERT INTO `monthly_rollup` (`accountId`, `month`, `type`, `count`, `total`) " +
+                "SELECT `accountId`, ${monthKey("date")} AS `month`, `type`, COUNT(*), TOTAL(`amount`) " +
+                "FROM `transactions` GROUP BY `accountId`, `month`, `type`"
+        )
+        createRollupTriggers(db)
+    }
+}
+
+val MIGRATION_12_13 = object : Migration(12, 13) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        // Both start empty: with no window row the repository fills the table on its first read
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `occurrences` (" +
+                "`sourceType` INTEGER NOT NULL, `sourceId` INTEGER NOT NULL, `dueDate` INTEGER NOT NULL, " +
+                "`amount` REAL NOT NULL, `status` INTEGER NOT NULL, `linkId` INTEGER, `accountId` INTEGER, " +
+                "PRIMARY KEY(`sourceType`, `sourceId`, `dueDate`))"
+        )
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_occurrences_dueDate` ON `occurrences` (`dueDate`)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_occurrences_status_dueDate` ON `occurrences` (`status`, `dueDate`)")
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS `occurrence_window` (" +
+                "`id` INTEGER NOT NULL, `startDate` INTEGER NOT NULL, `endDate` INTEGER NOT NULL, PRIMARY KEY(`id`))"
+        )
+        createOccurrenceTriggers(db)
+    }
+}
+
+// Every upgrade path from version 5, for the database builder and the migration tests
+val ALL_MIGRATIONS = arrayOf(
+    MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+    MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13
+)
+
+// Triggers Room has no annotation for, so a freshly created database needs them as well
+val DATABASE_CALLBACK = object : RoomDatabase.Callback() {
+    override fun onCreate(db: SupportSQLiteDatabase) {
+        createRollupTriggers(db)
+        createOccurrenceTriggers(db)
+    }
+}
+
+private val RECURRENCE_TYPES = arrayOf("BI_WEEKLY", "MONTHLY", "WEEKLY", "CUSTOM")
+
+// Copies every row into a table with the new definition, converting columns through [select]
+private fun SupportSQLiteDatabase.recreateTable(table: String, definition: String, columns: String, select: String) {
+    execSQL("CREATE TABLE IF NOT EXISTS `new_$table` ($definition)")
+    execSQL("INSERT INTO `new_$table` ($columns) SELECT $select FROM `$table`")
+    execSQL("DROP TABLE `$table`")
+    execSQL("ALTER TABLE `new_$table` RENAME TO `$table`")
+}
+
+// ISO date text ("2024-01-31") to epoch day; NULL stays NULL
+private fun epochDay(column: String) = "CAST(julianday(`$column`) - 2440587.5 AS INTEGER)"
+
+// ISO date-time text to epoch millis, treating the wall-clock time as UTC
+private fun epochMillis(column: String) =
+    "(CAST(strftime('%s', `$column`) AS INTEGER) * 1000 + CAST(substr(strftime('%f', `$column`), 4) AS INTEGER))"
+
+// Enum name to its persisted code; [names] are listed in code order
+private fun code(column: String, vararg names: String) =
+    names.withIndex().joinToString(" ", "CASE `$column` ", " END") { (code, name) -> "WHEN '$name' THEN $code" }
+
+private fun createIndices(db: SupportSQLiteDatabase) {
+    db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_bill_overrides_billId_date` ON `bill_overrides` (`billId`, `date`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_bill_overrides_date` ON `bill_overrides` (`date`)")
+    db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_income_overrides_incomeId_date` ON `income_overrides` (`incomeId`, `date`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_income_overrides_date` ON `income_overrides` (`date`)")
+    db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_bill_payments_billId_paymentDate` ON `bill_payments` (`billId`, `paymentDate`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_bill_payments_paymentDate` ON `bill_payments` (`paymentDate`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_bill_payments_accountId` ON `bill_payments` (`accountId`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_date_timestamp` ON `transactions` (`date`, `timestamp`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_accountId_date_timestamp` ON `transactions` (`accountId`, `date`, `timestamp`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_toAccountId_date` ON `transactions` (`toAccountId`, `date`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_relatedBillId` ON `transactions` (`relatedBillId`)")
+    db.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_relatedIncomeId` ON `transactions` (`relatedIncomeId`)")
+}
+
+// An external-content FTS4 table over one text column, with the sync triggers Room generates for
+// @Fts4(contentEntity), indexed from the rows already in [content]
+private fun createContentFts(db: SupportSQLiteDatabase, table: String, content: String, column: String) {
+    db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `$table` USING FTS4(`$column` TEXT NOT NULL, tokenize=unicode61, content=`$content`)")
+    for (operation in arrayOf("UPDATE", "DELETE")) {
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${table}_BEFORE_$operation BEFORE $operation ON `$content` " +
+                "BEGIN DELETE FROM `$table` WHERE `docid`=OLD.`rowid`; END"
+        )
+    }
+    for (operation in arrayOf("UPDATE", "INSERT")) {
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_${table}_AFTER_$operation AFTER $operation ON `$content` " +
+                "BEGIN INSERT INTO `$table`(`docid`, `$column`) VALUES (NEW.`rowid`, NEW.`$column`); END"
+        )
+    }
+    db.execSQL("INSERT INTO `$table`(`$table`) VALUES('rebuild')")
+}
+
+// Epoch-day column to its year * 100 + month key
+private fun monthKey(column: String) = "CAST(strftime('%Y%m', $column * 86400, 'unixepoch') AS INTEGER)"
+
+// Keeps monthly_rollup in step with transactions inside the writing statement itself, so it also
+// follows rows removed by an account's ON DELETE CASCADE. A (account, month, type) row is created
+// on first use and dropped once its last transaction goes.
+private fun createRollupTriggers(db: SupportSQLiteDatabase) {
+    fun add(row: String) =
+        "INSERT OR IGNORE INTO `monthly_rollup` (`accountId`, `month`, `type`, `count`, `total`) " +
+            "VALUES ($row.`accountId`, ${monthKey("$row.`date`")}, $row.`type`, 0, 0); " +
+            "UPDATE `monthly_rollup` SET `count` = `count` + 1, `total` = `total` + $row.`amount` " +
+            "WHERE `accountId` = $row.`accountId` AND `month` = ${monthKey("$row.`date`")} AND `type` = $row.`type`;"
+    fun remove(row: String) =
+        "UPDATE `monthly_rollup` SET `count` = `count` - 1, `total` = `total` - $row.`amount` " +
+            "WHERE `accountId` = $row.`accountId` AND `month` = ${monthKey("$row.`date`")} AND `type` = $row.`type`; " +
+            "DELETE FROM `monthly_rollup` WHERE `count` = 0 " +
+            "AND `accountId` = $row.`accountId` AND `month` = ${monthKey("$row.`date`")} AND `type` = $row.`type`;"
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `monthly_rollup_after_insert` AFTER INSERT ON `transactions` BEGIN ${add("NEW")} END")
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `monthly_rollup_after_delete` AFTER DELETE ON `transactions` BEGIN ${remove("OLD")} END")
+    db.execSQL(
+        "CREATE TRIGGER IF NOT EXISTS `monthly_rollup_after_update` " +
+            "AFTER UPDATE OF `accountId`, `type`, `amount`, `date` ON `transactions` BEGIN ${remove("OLD")} ${add("NEW")} END"
+    )
+}
+
+// Keeps the materialized occurrences in step with every write that changes an occurrence without
+// changing its schedule: overrides set the amount, a bill payment or the newest income transaction
+// on the day settles it, and deleting a bill or income drops its rows. Schedules themselves are
+// expanded by the repository, which runs RecurrenceEngine. Codes as in OccurrenceDao.
+private fun createOccurrenceTriggers(db: SupportSQLiteDatabase) {
+    fun occurrence(source: Int, sourceId: String, date: String) =
+        "`sourceType` = $source AND `sourceId` = $sourceId AND `dueDate` = $date"
+
+    for ((source, schedule) in arrayOf(0 to "bills", 1 to "income")) {
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `occurrences_after_${schedule}_delete` AFTER DELETE ON `$schedule` " +
+                "BEGIN DELETE FROM `occurrences` WHERE `sourceType` = $source AND `sourceId` = OLD.`id`; END"
+        )
+    }
+
+    fun overrideTriggers(source: Int, overrides: String, schedule: String, key: String) {
+        fun set(row: String) =
+            "UPDATE `occurrences` SET `amount` = $row.`amount` WHERE ${occurrence(source, "$row.`$key`", "$row.`date`")};"
+        // When the override goes by its schedule's cascade the schedule is already gone, and its rows with it
+        fun reset(row: String) =
+            "UPDATE `occurrences` SET `amount` = COALESCE((SELECT `amount` FROM `$schedule` WHERE `id` = $row.`$key`), `amount`) " +
+                "WHERE ${occurrence(source, "$row.`$key`", "$row.`date`")};"
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_${overrides}_insert` AFTER INSERT ON `$overrides` BEGIN ${set("NEW")} END")
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_${overrides}_delete` AFTER DELETE ON `$overrides` BEGIN ${reset("OLD")} END")
+        db.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS `occurrences_after_${overrides}_update` AFTER UPDATE ON `$overrides` " +
+                "BEGIN ${reset("OLD")} ${set("NEW")} END"
+        )
+    }
+    overrideTriggers(0, "bill_overrides", "bills", "billId")
+    overrideTriggers(1, "income_overrides", "income", "incomeId")
+
+    fun pay(row: String) =
+        "UPDATE `occurrences` SET `status` = 1, `linkId` = $row.`id`, `accountId` = $row.`accountId` " +
+            "WHERE ${occurrence(0, "$row.`billId`", "$row.`paymentDate`")};"
+    fun unpay(row: String) =
+        "UPDATE `occurrences` SET `status` = 0, `linkId` = NULL, `accountId` = NULL " +
+            "WHERE ${occurrence(0, "$row.`billId`", "$row.`paymentDate`")} AND `linkId` = $row.`id`;"
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_bill_payments_insert` AFTER INSERT ON `bill_payments` BEGIN ${pay("NEW")} END")
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_bill_payments_delete` AFTER DELETE ON `bill_payments` BEGIN ${unpay("OLD")} END")
+    db.execSQL(
+        "CREATE TRIGGER IF NOT EXISTS `occurrences_after_bill_payments_update` " +
+            "AFTER UPDATE OF `billId`, `accountId`, `paymentDate` ON `bill_payments` BEGIN ${unpay("OLD")} ${pay("NEW")} END"
+    )
+
+    fun receive(row: String) =
+        "UPDATE `occurrences` SET `status` = 1, `linkId` = $row.`id`, `accountId` = $row.`accountId` " +
+            "WHERE $row.`type` = 0 AND ${occurrence(1, "$row.`relatedIncomeId`", "$row.`date`")} " +
+            "AND (`linkId` IS NULL OR `linkId` < $row.`id`);"
+    // Falls back to the newest income transaction still left on the day, if any
+    fun unreceive(row: String): String {
+        val sameDay = "FROM `transactions` WHERE `type` = 0 AND `relatedIncomeId` = $row.`relatedIncomeId` AND `date` = $row.`date`"
+        return "UPDATE `occurrences` SET `status` = EXISTS (SELECT 1 $sameDay), `linkId` = (SELECT MAX(`id`) $sameDay), " +
+            "`accountId` = (SELECT `accountId` $sameDay ORDER BY `id` DESC LIMIT 1) " +
+            "WHERE ${occurrence(1, "$row.`relatedIncomeId`", "$row.`date`")} AND `linkId` = $row.`id`;"
+    }
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_transactions_insert` AFTER INSERT ON `transactions` BEGIN ${receive("NEW")} END")
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS `occurrences_after_transactions_delete` AFTER DELETE ON `transactions` BEGIN ${unreceive("OLD")} END")
+    db.execSQL(
+        "CREATE TRIGGER IF NOT EXISTS `occurrences_after_transactions_update` " +
+            "AFTER UPDATE OF `accountId`, `type`, `date`, `relatedIncomeId` ON `transactions` BEGIN ${unreceive("OLD")} ${receive("NEW")} END"
+    )
+}
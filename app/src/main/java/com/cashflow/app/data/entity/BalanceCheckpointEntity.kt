@@ -0,0 +1,30 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import kotlinx.datetime.LocalDate
+
+// An account's ledger balance at the end of a month, kept in step with transaction writes
+@Entity(
+    tableName = "balance_checkpoints",
+    primaryKeys = ["accountId", "monthEnd"],
+    foreignKeys = [
+        ForeignKey(
+            entity = AccountEntity::class,
+            parentColumns = ["id"],
+            childColumns = ["accountId"],
+            onDelete = ForeignKey.CASCADE
+        )
+    ]
+)
+data class BalanceCheckpointEntity(
+    val accountId: Long,
+    val monthEnd: LocalDate,
+    val balance: Double
+)
+
+// Net change to one account from all of its transactions on a day
+data class DailyBalanceChange(
+    val date: LocalDate,
+    val change: Double
+)
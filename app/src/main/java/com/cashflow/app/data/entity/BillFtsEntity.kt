@@ -0,0 +1,12 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+// Full-text index over bill names; rowid is the bills row id and Room's triggers keep it in sync
+@Fts4(contentEntity = BillEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "bills_fts")
+data class BillFtsEntity(
+    val name: String
+)
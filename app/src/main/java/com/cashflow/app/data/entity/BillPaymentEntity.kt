@@ -2,6 +2,7 @@ package com.cashflow.app.data.entity
 
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import kotlinx.datetime.LocalDate
 import kotlinx.datetime.LocalDateTime
@@ -21,6 +22,11 @@ import kotlinx.datetime.LocalDateTime
             childColumns = ["accountId"],
             onDelete = ForeignKey.CASCADE
         )
+    ],
+    indices = [
+        Index(value = ["billId", "paymentDate"], unique = true), // One payment per occurrence
+        Index(value = ["paymentDate"]),
+        Index(value = ["accountId"])
     ]
 )
 data class BillPaymentEntity(
@@ -0,0 +1,20 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import com.cashflow.app.data.model.BackupTable
+import com.cashflow.app.data.model.ChangeOp
+
+// One row written since the last backup, or a backup/restore marker; the log is trimmed at every backup
+@Entity(
+    tableName = "change_log",
+    indices = [Index(value = ["entity", "entityId"])]
+)
+data class ChangeLogEntity(
+    @PrimaryKey(autoGenerate = true)
+    val sequence: Long = 0,
+    val entity: BackupTable?, // null for markers
+    val entityId: Long,
+    val op: ChangeOp
+)
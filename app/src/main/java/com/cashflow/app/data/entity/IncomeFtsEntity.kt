@@ -0,0 +1,12 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+// Full-text index over income names; rowid is the income row id and Room's triggers keep it in sync
+@Fts4(contentEntity = IncomeEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "income_fts")
+data class IncomeFtsEntity(
+    val name: String
+)
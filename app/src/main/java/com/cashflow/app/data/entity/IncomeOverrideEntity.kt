@@ -2,6 +2,7 @@ package com.cashflow.app.data.entity
 
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import kotlinx.datetime.LocalDate
 
@@ -14,6 +15,10 @@ import kotlinx.datetime.LocalDate
             childColumns = ["incomeId"],
             onDelete = ForeignKey.CASCADE
         )
+    ],
+    indices = [
+        Index(value = ["incomeId", "date"], unique = true), // One override per occurrence
+        Index(value = ["date"])
     ]
 )
 data class IncomeOverrideEntity(
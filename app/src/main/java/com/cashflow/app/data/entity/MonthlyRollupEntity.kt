@@ -0,0 +1,20 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import com.cashflow.app.data.model.TransactionType
+
+// Count and sum of one account's transactions of one type in one month, keyed by the source
+// account like an account's history. Maintained by triggers on transactions (see Migrations.kt).
+@Entity(
+    tableName = "monthly_rollup",
+    primaryKeys = ["accountId", "month", "type"],
+    indices = [Index(value = ["month"])]
+)
+data class MonthlyRollupEntity(
+    val accountId: Long,
+    val month: Int, // year * 100 + month number, e.g. 202403
+    val type: TransactionType,
+    val count: Int,
+    val total: Double
+)
@@ -0,0 +1,11 @@
+package com.cashflow.app.data.entity
+
+import com.cashflow.app.data.model.TransactionType
+
+// One (month, type) row of the ReportDao queries
+data class MonthlyTypeTotal(
+    val month: Int,
+    val type: TransactionType,
+    val count: Int,
+    val total: Double
+)
@@ -0,0 +1,28 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import com.cashflow.app.data.model.OccurrenceSource
+import com.cashflow.app.data.model.OccurrenceStatus
+import kotlinx.datetime.LocalDate
+
+// One scheduled bill or income occurrence inside the window of OccurrenceWindowEntity. Rows are
+// written by the repository from the schedules; amount, status and the link follow overrides,
+// payments and income transactions through triggers (see Migrations.kt).
+@Entity(
+    tableName = "occurrences",
+    primaryKeys = ["sourceType", "sourceId", "dueDate"],
+    indices = [
+        Index(value = ["dueDate"]),
+        Index(value = ["status", "dueDate"])
+    ]
+)
+data class OccurrenceEntity(
+    val sourceType: OccurrenceSource,
+    val sourceId: Long, // Bill or income id
+    val dueDate: LocalDate,
+    val amount: Double, // Override amount if there is one, else the schedule's
+    val status: OccurrenceStatus = OccurrenceStatus.PENDING,
+    val linkId: Long? = null, // Bill payment id, or the id of the transaction that received the income
+    val accountId: Long? = null // Account paid from or received into
+)
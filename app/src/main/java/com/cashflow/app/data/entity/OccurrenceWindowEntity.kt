@@ -0,0 +1,14 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import kotlinx.datetime.LocalDate
+
+// Days the occurrences table covers; a single row, absent until the table is first filled
+@Entity(tableName = "occurrence_window")
+data class OccurrenceWindowEntity(
+    @PrimaryKey
+    val id: Int = 0,
+    val startDate: LocalDate,
+    val endDate: LocalDate
+)
@@ -0,0 +1,12 @@
+package com.cashflow.app.data.entity
+
+// Raw rows behind one projection run, loaded by ProjectionDao.loadSnapshot
+data class ProjectionRows(
+    val accounts: List<AccountEntity>,
+    val income: List<IncomeEntity>,
+    val bills: List<BillEntity>,
+    val incomeOverrides: List<IncomeOverrideEntity>,
+    val billOverrides: List<BillOverrideEntity>,
+    val billPayments: List<BillPaymentEntity>,
+    val transactions: List<TransactionEntity>
+)
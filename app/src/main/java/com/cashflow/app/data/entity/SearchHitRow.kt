@@ -0,0 +1,13 @@
+package com.cashflow.app.data.entity
+
+import kotlinx.datetime.LocalDate
+
+// One row of SearchDao.search; kind is 0 transaction, 1 bill, 2 income
+data class SearchHitRow(
+    val kind: Int,
+    val id: Long,
+    val title: String,
+    val amount: Double,
+    val date: LocalDate,
+    val hits: Int
+)
@@ -2,6 +2,7 @@ package com.cashflow.app.data.entity
 
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.cashflow.app.data.model.TransactionType
 import kotlinx.datetime.LocalDate
@@ -22,6 +23,14 @@ import kotlinx.datetime.LocalDateTime
             childColumns = ["toAccountId"],
             onDelete = ForeignKey.CASCADE
         )
+    ],
+    indices = [
+        Index(value = ["date", "timestamp"]),
+        Index(value = ["accountId", "date", "timestamp"]),
+        Index(value = ["toAccountId", "date"]),
+        Index(value = ["type", "date", "timestamp"]),
+        Index(value = ["relatedBillId", "date", "timestamp"]),
+        Index(value = ["relatedIncomeId", "date", "timestamp"])
     ]
 )
 data class TransactionEntity(
@@ -0,0 +1,12 @@
+package com.cashflow.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+
+// Full-text index over transaction descriptions; rowid is the transactions row id and Room's triggers keep it in sync
+@Fts4(contentEntity = TransactionEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "transactions_fts")
+data class TransactionFtsEntity(
+    val description: String
+)
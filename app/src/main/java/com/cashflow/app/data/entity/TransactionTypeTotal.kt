@@ -0,0 +1,10 @@
+package com.cashflow.app.data.entity
+
+import com.cashflow.app.data.model.TransactionType
+
+// One GROUP BY type row of TransactionDao.observeTotals
+data class TransactionTypeTotal(
+    val type: TransactionType,
+    val count: Int,
+    val amount: Double
+)
@@ -1,8 +1,12 @@
 package com.cashflow.app.data.model
 
-enum class AccountType {
-    SAVINGS,
-    CHECKING,
-    CREDIT_CARD
-}
+// Codes are persisted in the database; never renumber or reuse them
+enum class AccountType(val code: Int) {
+    SAVINGS(0),
+    CHECKING(1),
+    CREDIT_CARD(2);
 
+    companion object {
+        fun fromCode(code: Int): AccountType = values().first { it.code == code }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cashflow.app.data.model
+
+// Backed-up tables in restore order (parents first). Codes are persisted; never renumber or reuse them
+enum class BackupTable(val code: Int) {
+    ACCOUNTS(0),
+    INCOME(1),
+    INCOME_OVERRIDES(2),
+    BILLS(3),
+    BILL_OVERRIDES(4),
+    TRANSACTIONS(5),
+    BILL_PAYMENTS(6);
+
+    companion object {
+        fun fromCode(code: Int): BackupTable = values().first { it.code == code }
+    }
+}
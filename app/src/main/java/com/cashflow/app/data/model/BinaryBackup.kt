@@ -0,0 +1,430 @@
+@file:OptIn(ExperimentalSerializationApi::class)
+
+package com.cashflow.app.data.model
+
+import com.cashflow.app.data.entity.*
+import kotlinx.datetime.Instant
+import kotlinx.datetime.LocalDate
+import kotlinx.datetime.LocalDateTime
+import kotlinx.datetime.TimeZone
+import kotlinx.datetime.toInstant
+import kotlinx.datetime.toLocalDateTime
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.protobuf.ProtoNumber
+import kotlinx.serialization.protobuf.ProtoPacked
+import java.io.EOFException
+import java.io.InputStream
+import java.io.OutputStream
+
+/*
+ * Binary backup layout: the magic bytes and a format version byte, then a gzip stream of
+ * varint length-prefixed ProtoBuf frames. The first frame is a BinaryBackupHeader; each one after
+ * it is a BackupChunk carrying one page of one table, column by column, in restore order.
+ *
+ * Inside a chunk every integer column is a plain varint. Ids, dates and timestamps are stored as
+ * zigzag deltas from the previous row of the same table, nullable values as 0 for null or the
+ * zigzag value + 1, and names and descriptions as indexes into a string dictionary that each
+ * chunk extends with the strings it introduces.
+ *
+ * Version 2 adds incremental backups: a header with a baseSequence holds only the rows changed
+ * since the backup with that sequence, plus the ids deleted since then, and replays on top of it.
+ */
+val BINARY_BACKUP_MAGIC = byteArrayOf('C'.code.toByte(), 'F'.code.toByte(), 'B'.code.toByte(), 'K'.code.toByte())
+const val BINARY_BACKUP_VERSION = 2
+
+@Serializable
+class BinaryBackupHeader(
+    @ProtoNumber(1) val exportDate: String,
+    @ProtoNumber(2) val totalRows: Int,
+    @ProtoNumber(3) val sequence: Long = 0, // Change-log position this backup captures
+    @ProtoNumber(4) val baseSequence: Long = 0 // Backup this one applies on top of; 0 for a full backup
+) {
+    val isIncremental: Boolean get() = baseSequence != 0L
+}
+
+// Exactly one table is set per chunk
+@Serializable
+class BackupChunk(
+    @ProtoNumber(1) val newStrings: List<String> = emptyList(),
+    @ProtoNumber(2) val accounts: AccountColumns? = null,
+    @ProtoNumber(3) val income: IncomeColumns? = null,
+    @ProtoNumber(4) val incomeOverrides: OverrideColumns? = null,
+    @ProtoNumber(5) val bills: BillColumns? = null,
+    @ProtoNumber(6) val billOverrides: OverrideColumns? = null,
+    @ProtoNumber(7) val transactions: TransactionColumns? = null,
+    @ProtoNumber(8) val billPayments: PaymentColumns? = null,
+    @ProtoNumber(9) val deletes: DeleteColumns? = null
+)
+
+@Serializable
+class AccountColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val names: List<Int>,
+    @ProtoNumber(3) @ProtoPacked val types: List<Int>,
+    @ProtoNumber(4) @ProtoPacked val startingBalances: List<Double>,
+    @ProtoNumber(5) @ProtoPacked val currentBalances: List<Double>
+)
+
+@Serializable
+class IncomeColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val names: List<Int>,
+    @ProtoNumber(3) @ProtoPacked val amounts: List<Double>,
+    @ProtoNumber(4) @ProtoPacked val recurrenceTypes: List<Int>,
+    @ProtoNumber(5) @ProtoPacked val startDates: List<Long>,
+    @ProtoNumber(6) @ProtoPacked val accountIds: List<Long>,
+    @ProtoNumber(7) @ProtoPacked val active: List<Boolean>
+)
+
+// Shared by income and bill overrides; parentIds are the income or bill ids
+@Serializable
+class OverrideColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val parentIds: List<Long>,
+    @ProtoNumber(3) @ProtoPacked val dates: List<Long>,
+    @ProtoNumber(4) @ProtoPacked val amounts: List<Double>
+)
+
+@Serializable
+class BillColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val names: List<Int>,
+    @ProtoNumber(3) @ProtoPacked val amounts: List<Double>,
+    @ProtoNumber(4) @ProtoPacked val recurrenceTypes: List<Int>,
+    @ProtoNumber(5) @ProtoPacked val startDates: List<Long>,
+    @ProtoNumber(6) @ProtoPacked val endDates: List<Long>,
+    @ProtoNumber(7) @ProtoPacked val accountIds: List<Long>,
+    @ProtoNumber(8) @ProtoPacked val active: List<Boolean>,
+    @ProtoNumber(9) @ProtoPacked val reminderDaysBefore: List<Int>
+)
+
+@Serializable
+class TransactionColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val accountIds: List<Long>,
+    @ProtoNumber(3) @ProtoPacked val toAccountIds: List<Long>,
+    @ProtoNumber(4) @ProtoPacked val types: List<Int>,
+    @ProtoNumber(5) @ProtoPacked val amounts: List<Double>,
+    @ProtoNumber(6) @ProtoPacked val dates: List<Long>,
+    @ProtoNumber(7) @ProtoPacked val timestamps: List<Long>,
+    @ProtoNumber(8) @ProtoPacked val descriptions: List<Int>,
+    @ProtoNumber(9) @ProtoPacked val relatedBillIds: List<Long>,
+    @ProtoNumber(10) @ProtoPacked val relatedIncomeIds: List<Long>
+)
+
+@Serializable
+class PaymentColumns(
+    @ProtoNumber(1) @ProtoPacked val ids: List<Long>,
+    @ProtoNumber(2) @ProtoPacked val billIds: List<Long>,
+    @ProtoNumber(3) @ProtoPacked val accountIds: List<Long>,
+    @ProtoNumber(4) @ProtoPacked val paymentDates: List<Long>,
+    @ProtoNumber(5) @ProtoPacked val amounts: List<Double>,
+    @ProtoNumber(6) @ProtoPacked val timestamps: List<Long>,
+    @ProtoNumber(7) @ProtoPacked val transactionIds: List<Long>
+)
+
+// Rows deleted since the base backup; tables are BackupTable codes
+@Serializable
+class DeleteColumns(
+    @ProtoNumber(1) @ProtoPacked val tables: List<Int>,
+    @ProtoNumber(2) @ProtoPacked val ids: List<Long>
+)
+
+// The rows decoded from one chunk; all lists but one are empty
+data class BackupRows(
+    val accounts: List<AccountEntity> = emptyList(),
+    val income: List<IncomeEntity> = emptyList(),
+    val incomeOverrides: List<IncomeOverrideEntity> = emptyList(),
+    val bills: List<BillEntity> = emptyList(),
+    val billOverrides: List<BillOverrideEntity> = emptyList(),
+    val transactions: List<TransactionEntity> = emptyList(),
+    val billPayments: List<BillPaymentEntity> = emptyList(),
+    val deletes: List<ChangeLogEntity> = emptyList()
+) {
+    val size: Int
+        get() = accounts.size + income.size + incomeOverrides.size + bills.size +
+            billOverrides.size + transactions.size + billPayments.size + deletes.size
+}
+
+/**
+ * Converts pages of entities to chunks and back. The delta and dictionary state carries over from
+ * chunk to chunk, so one instance must see a whole backup, in file order, in one direction.
+ */
+class BinaryBackupCodec {
+    private val dictionary = HashMap<String, Int>()
+    private val strings = ArrayList<String>()
+    private var newStrings = ArrayList<String>()
+
+    private val accountIds = DeltaColumn()
+    private val incomeIds = DeltaColumn()
+    private val incomeDates = DeltaColumn()
+    private val incomeOverrideIds = DeltaColumn()
+    private val incomeOverrideDates = DeltaColumn()
+    private val billIds = DeltaColumn()
+    private val billDates = DeltaColumn()
+    private val billOverrideIds = DeltaColumn()
+    private val billOverrideDates = DeltaColumn()
+    private val transactionIds = DeltaColumn()
+    private val transactionDates = DeltaColumn()
+    private val transactionTimestamps = DeltaColumn()
+    private val paymentIds = DeltaColumn()
+    private val paymentDates = DeltaColumn()
+    private val paymentTimestamps = DeltaColumn()
+
+    fun encodeAccounts(rows: List<AccountEntity>): BackupChunk {
+        val columns = AccountColumns(
+            ids = rows.map { accountIds.encode(it.id) },
+            names = rows.map { stringId(it.name) },
+            types = rows.map { it.type.code },
+            startingBalances = rows.map { it.startingBalance },
+            currentBalances = rows.map { it.currentBalance }
+        )
+        return BackupChunk(newStrings = takeNewStrings(), accounts = columns)
+    }
+
+    fun encodeIncome(rows: List<IncomeEntity>): BackupChunk {
+        val columns = IncomeColumns(
+            ids = rows.map { incomeIds.encode(it.id) },
+            names = rows.map { stringId(it.name) },
+            amounts = rows.map { it.amount },
+            recurrenceTypes = rows.map { it.recurrenceType.code },
+            startDates = rows.map { incomeDates.encode(it.startDate.toEpochDays().toLong()) },
+            accountIds = rows.map { it.accountId },
+            active = rows.map { it.isActive }
+        )
+        return BackupChunk(newStrings = takeNewStrings(), income = columns)
+    }
+
+    fun encodeIncomeOverrides(rows: List<IncomeOverrideEntity>) = BackupChunk(
+        incomeOverrides = OverrideColumns(
+            ids = rows.map { incomeOverrideIds.encode(it.id) },
+            parentIds = rows.map { it.incomeId },
+            dates = rows.map { incomeOverrideDates.encode(it.date.toEpochDays().toLong()) },
+            amounts = rows.map { it.amount }
+        )
+    )
+
+    fun encodeBills(rows: List<BillEntity>): BackupChunk {
+        val columns = BillColumns(
+            ids = rows.map { billIds.encode(it.id) },
+            names = rows.map { stringId(it.name) },
+            amounts = rows.map { it.amount },
+            recurrenceTypes = rows.map { it.recurrenceType.code },
+            startDates = rows.map { billDates.encode(it.startDate.toEpochDays().toLong()) },
+            endDates = rows.map { nullable(it.endDate?.toEpochDays()?.toLong()) },
+            accountIds = rows.map { nullable(it.accountId) },
+            active = rows.map { it.isActive },
+            reminderDaysBefore = rows.map { it.reminderDaysBefore }
+        )
+        return BackupChunk(newStrings = takeNewStrings(), bills = columns)
+    }
+
+    fun encodeBillOverrides(rows: List<BillOverrideEntity>) = BackupChunk(
+        billOverrides = OverrideColumns(
+            ids = rows.map { billOverrideIds.encode(it.id) },
+            parentIds = rows.map { it.billId },
+            dates = rows.map { billOverrideDates.encode(it.date.toEpochDays().toLong()) },
+            amounts = rows.map { it.amount }
+        )
+    )
+
+    fun encodeTransactions(rows: List<TransactionEntity>): BackupChunk {
+        val columns = TransactionColumns(
+            ids = rows.map { transactionIds.encode(it.id) },
+            accountIds = rows.map { it.accountId },
+            toAccountIds = rows.map { nullable(it.toAccountId) },
+            types = rows.map { it.type.code },
+            amounts = rows.map { it.amount },
+            dates = rows.map { transactionDates.encode(it.date.toEpochDays().toLong()) },
+            timestamps = rows.map { transactionTimestamps.encode(epochMillis(it.timestamp)) },
+            descriptions = rows.map { stringId(it.description) },
+            relatedBillIds = rows.map { nullable(it.relatedBillId) },
+            relatedIncomeIds = rows.map { nullable(it.relatedIncomeId) }
+        )
+        return BackupChunk(newStrings = takeNewStrings(), transactions = columns)
+    }
+
+    fun encodeBillPayments(rows: List<BillPaymentEntity>) = BackupChunk(
+        billPayments = PaymentColumns(
+            ids = rows.map { paymentIds.encode(it.id) },
+            billIds = rows.map { it.billId },
+            accountIds = rows.map { it.accountId },
+            paymentDates = rows.map { paymentDates.encode(it.paymentDate.toEpochDays().toLong()) },
+            amounts = rows.map { it.amount },
+            timestamps = rows.map { paymentTimestamps.encode(epochMillis(it.timestamp)) },
+            transactionIds = rows.map { nullable(it.transactionId) }
+        )
+    )
+
+    fun encodeDeletes(rows: List<ChangeLogEntity>) = BackupChunk(
+        deletes = DeleteColumns(
+            tables = rows.map { it.entity!!.code },
+            ids = rows.map { it.entityId }
+        )
+    )
+
+    fun decode(chunk: BackupChunk): BackupRows {
+        strings += chunk.newStrings
+        chunk.accounts?.let { c ->
+            return BackupRows(accounts = List(c.ids.size) { i ->
+                AccountEntity(
+                    id = accountIds.decode(c.ids[i]),
+                    name = strings[c.names[i]],
+                    type = AccountType.fromCode(c.types[i]),
+                    startingBalance = c.startingBalances[i],
+                    currentBalance = c.currentBalances[i]
+                )
+            })
+        }
+        chunk.income?.let { c ->
+            return BackupRows(income = List(c.ids.size) { i ->
+                IncomeEntity(
+                    id = incomeIds.decode(c.ids[i]),
+                    name = strings[c.names[i]],
+                    amount = c.amounts[i],
+                    recurrenceType = RecurrenceType.fromCode(c.recurrenceTypes[i]),
+                    startDate = LocalDate.fromEpochDays(incomeDates.decode(c.startDates[i]).toInt()),
+                    accountId = c.accountIds[i],
+                    isActive = c.active[i]
+                )
+            })
+        }
+        chunk.incomeOverrides?.let { c ->
+            return BackupRows(incomeOverrides = List(c.ids.size) { i ->
+                IncomeOverrideEntity(
+                    id = incomeOverrideIds.decode(c.ids[i]),
+                    incomeId = c.parentIds[i],
+                    date = LocalDate.fromEpochDays(incomeOverrideDates.decode(c.dates[i]).toInt()),
+                    amount = c.amounts[i]
+                )
+            })
+        }
+        chunk.bills?.let { c ->
+            return BackupRows(bills = List(c.ids.size) { i ->
+                BillEntity(
+                    id = billIds.decode(c.ids[i]),
+                    name = strings[c.names[i]],
+                    amount = c.amounts[i],
+                    recurrenceType = RecurrenceType.fromCode(c.recurrenceTypes[i]),
+                    startDate = LocalDate.fromEpochDays(billDates.decode(c.startDates[i]).toInt()),
+                    endDate = nullable(c.endDates[i])?.let { LocalDate.fromEpochDays(it.toInt()) },
+                    accountId = nullable(c.accountIds[i]),
+                    isActive = c.active[i],
+                    reminderDaysBefore = c.reminderDaysBefore[i]
+                )
+            })
+        }
+        chunk.billOverrides?.let { c ->
+            return BackupRows(billOverrides = List(c.ids.size) { i ->
+                BillOverrideEntity(
+                    id = billOverrideIds.decode(c.ids[i]),
+                    billId = c.parentIds[i],
+                    date = LocalDate.fromEpochDays(billOverrideDates.decode(c.dates[i]).toInt()),
+                    amount = c.amounts[i]
+                )
+            })
+        }
+        chunk.transactions?.let { c ->
+            return BackupRows(transactions = List(c.ids.size) { i ->
+                TransactionEntity(
+                    id = transactionIds.decode(c.ids[i]),
+                    accountId = c.accountIds[i],
+                    toAccountId = nullable(c.toAccountIds[i]),
+                    type = TransactionType.fromCode(c.types[i]),
+                    amount = c.amounts[i],
+                    date = LocalDate.fromEpochDays(transactionDates.decode(c.dates[i]).toInt()),
+                    timestamp = localDateTime(transactionTimestamps.decode(c.timestamps[i])),
+                    description = strings[c.descriptions[i]],
+                    relatedBillId = nullable(c.relatedBillIds[i]),
+                    relatedIncomeId = nullable(c.relatedIncomeIds[i])
+                )
+            })
+        }
+        chunk.billPayments?.let { c ->
+            return BackupRows(billPayments = List(c.ids.size) { i ->
+                BillPaymentEntity(
+                    id = paymentIds.decode(c.ids[i]),
+                    billId = c.billIds[i],
+                    accountId = c.accountIds[i],
+                    paymentDate = LocalDate.fromEpochDays(paymentDates.decode(c.paymentDates[i]).toInt()),
+                    amount = c.amounts[i],
+                    timestamp = localDateTime(paymentTimestamps.decode(c.timestamps[i])),
+                    transactionId = nullable(c.transactionIds[i])
+                )
+            })
+        }
+        chunk.deletes?.let { c ->
+            return BackupRows(deletes = List(c.ids.size) { i ->
+                ChangeLogEntity(entity = BackupTable.fromCode(c.tables[i]), entityId = c.ids[i], op = ChangeOp.DELETE)
+            })
+        }
+        return BackupRows()
+    }
+
+    private fun stringId(value: String): Int = dictionary.getOrPut(value) {
+        newStrings += value
+        dictionary.size
+    }
+
+    private fun takeNewStrings(): List<String> = newStrings.also { newStrings = ArrayList() }
+
+    // Same instant the database stores: the wall-clock time read as UTC
+    private fun epochMillis(value: LocalDateTime): Long = value.toInstant(TimeZone.UTC).toEpochMilliseconds()
+
+    private fun localDateTime(millis: Long): LocalDateTime =
+        Instant.fromEpochMilliseconds(millis).toLocalDateTime(TimeZone.UTC)
+
+    private fun nullable(value: Long?): Long = if (value == null) 0 else zigzag(value) + 1
+
+    private fun nullable(code: Long): Long? = if (code == 0L) null else unzigzag(code - 1)
+
+    // Successive values of one column, stored as the zigzag difference from the previous one
+    private class DeltaColumn {
+        private var previous = 0L
+
+        fun encode(value: Long): Long = zigzag(value - previous).also { previous = value }
+
+        fun decode(code: Long): Long = (previous + unzigzag(code)).also { previous = it }
+    }
+
+    private companion object {
+        fun zigzag(value: Long): Long = (value shl 1) xor (value shr 63)
+
+        fun unzigzag(code: Long): Long = (code ushr 1) xor -(code and 1)
+    }
+}
+
+fun OutputStream.writeFrame(frame: ByteArray) {
+    var length = frame.size
+    while (length >= 0x80) {
+        write(length and 0x7F or 0x80)
+        length = length ushr 7
+    }
+    write(length)
+    write(frame)
+}
+
+// Next frame, or null at a clean end of stream
+fun InputStream.readFrame(): ByteArray? {
+    var length = 0
+    var shift = 0
+    while (true) {
+        val b = read()
+        if (b < 0) {
+            if (shift == 0) return null
+            throw EOFException("Truncated backup frame")
+        }
+        length = length or (b and 0x7F shl shift)
+        if (b < 0x80) break
+        shift += 7
+    }
+    val frame = ByteArray(length)
+    var read = 0
+    while (read < length) {
+        val n = read(frame, read, length - read)
+        if (n < 0) throw EOFException("Truncated backup frame")
+        read += n
+    }
+    return frame
+}
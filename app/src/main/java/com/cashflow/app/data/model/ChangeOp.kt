@@ -0,0 +1,16 @@
+package com.cashflow.app.data.model
+
+// Codes are persisted in the database; never renumber or reuse them
+enum class ChangeOp(val code: Int) {
+    UPSERT(0),
+    DELETE(1),
+
+    // Markers, logged without an entity
+    FULL_BACKUP(2),
+    INCREMENTAL_BACKUP(3),
+    RESTORED(4); // entityId holds the sequence of the backup that was restored, 0 if none
+
+    companion object {
+        fun fromCode(code: Int): ChangeOp = values().first { it.code == code }
+    }
+}
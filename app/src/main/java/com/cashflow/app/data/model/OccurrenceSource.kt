@@ -0,0 +1,11 @@
+package com.cashflow.app.data.model
+
+// Schedule an occurrence row belongs to. Codes are persisted in the database; never renumber or reuse them
+enum class OccurrenceSource(val code: Int) {
+    BILL(0),
+    INCOME(1);
+
+    companion object {
+        fun fromCode(code: Int): OccurrenceSource = values().first { it.code == code }
+    }
+}
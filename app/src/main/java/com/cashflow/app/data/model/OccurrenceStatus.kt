@@ -0,0 +1,11 @@
+package com.cashflow.app.data.model
+
+// Codes are persisted in the database; never renumber or reuse them
+enum class OccurrenceStatus(val code: Int) {
+    PENDING(0),
+    SETTLED(1); // Bill paid, or income received
+
+    companion object {
+        fun fromCode(code: Int): OccurrenceStatus = values().first { it.code == code }
+    }
+}
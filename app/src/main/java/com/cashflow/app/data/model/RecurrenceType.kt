@@ -1,9 +1,13 @@
 package com.cashflow.app.data.model
 
-enum class RecurrenceType {
-    BI_WEEKLY,
-    MONTHLY,
-    WEEKLY,
-    CUSTOM
-}
+// Codes are persisted in the database; never renumber or reuse them
+enum class RecurrenceType(val code: Int) {
+    BI_WEEKLY(0),
+    MONTHLY(1),
+    WEEKLY(2),
+    CUSTOM(3);
 
+    companion object {
+        fun fromCode(code: Int): RecurrenceType = values().first { it.code == code }
+    }
+}
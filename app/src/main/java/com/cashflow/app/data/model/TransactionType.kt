@@ -1,10 +1,14 @@
 package com.cashflow.app.data.model
 
-enum class TransactionType {
-    INCOME,
-    BILL_PAYMENT,
-    MANUAL_ADJUSTMENT,
-    CREDIT_CARD_PAYMENT,
-    TRANSFER // Transfer between accounts
-}
+// Codes are persisted in the database; never renumber or reuse them
+enum class TransactionType(val code: Int) {
+    INCOME(0),
+    BILL_PAYMENT(1),
+    MANUAL_ADJUSTMENT(2),
+    CREDIT_CARD_PAYMENT(3),
+    TRANSFER(4); // Transfer between accounts
 
+    companion object {
+        fun fromCode(code: Int): TransactionType = values().first { it.code == code }
+    }
+}
@@ -0,0 +1,97 @@
+package com.cashflow.app.data.paging
+
+import androidx.paging.PagingSource
+import androidx.paging.PagingState
+import androidx.room.InvalidationTracker
+import com.cashflow.app.data.dao.TransactionDao
+import com.cashflow.app.data.dao.TransactionFilterQuery
+import com.cashflow.app.data.database.CashFlowDatabase
+import com.cashflow.app.data.entity.TransactionEntity
+import com.cashflow.app.domain.model.TransactionFilter
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import kotlinx.datetime.LocalDate
+import kotlinx.datetime.LocalDateTime
+import java.util.concurrent.atomic.AtomicBoolean
+
+// Position of a row in the transaction list, which runs newest first
+data class TransactionKey(val date: LocalDate, val timestamp: LocalDateTime, val id: Long)
+
+private fun TransactionEntity.pagingKey() = TransactionKey(date, timestamp, id)
+
+/**
+ * Keyset-paged transactions matching a [TransactionFilter], newest first.
+ *
+ * Each page is read relative to the first or last row already loaded instead of by OFFSET, so a
+ * page deep in the history costs the same as the first one and pages dropped by the Pager can be
+ * fetched again in either direction. Any write to the table invalidates the source.
+ */
+class TransactionPagingSource(
+    private val database: CashFlowDatabase,
+    private val transactionDao: TransactionDao,
+    filter: TransactionFilter = TransactionFilter()
+) : PagingSource<TransactionKey, TransactionEntity>() {
+
+    private val query = TransactionFilterQuery(filter)
+
+    private val observer = object : InvalidationTracker.Observer("transactions") {
+        override fun onInvalidated(tables: Set<String>) {
+            invalidate()
+        }
+    }
+    private val observing = AtomicBoolean(false)
+
+    init {
+        // Unregistered on the first invalidation, whatever caused it: a write to the table, a
+        // refresh, or the repository discarding the Pager. Invalidation may come from the main
+        // thread or from inside the tracker's own notification, so removal runs on Room's executor.
+        registerInvalidatedCallback {
+            database.queryExecutor.execute { database.invalidationTracker.removeObserver(observer) }
+        }
+    }
+
+    override suspend fun load(params: LoadParams<TransactionKey>): LoadResult<TransactionKey, TransactionEntity> {
+        // Observe before the first read so a write landing in between still invalidates
+        if (observing.compareAndSet(false, true)) {
+            withContext(Dispatchers.IO) {
+                database.invalidationTracker.addObserver(observer)
+                if (invalid) database.invalidationTracker.removeObserver(observer)
+            }
+        }
+        val key = params.key
+        val rows = when {
+            key == null -> latest(params.loadSize)
+            params is LoadParams.Prepend -> newerThan(key, params.loadSize).asReversed()
+            params is LoadParams.Append -> olderThan(key, params.loadSize)
+            // A refresh resumes at the anchor row itself: ids are whole numbers, so within the
+            // anchor's (date, timestamp) "older than id + 1" still includes it
+            else -> olderThan(key.copy(id = key.id + 1), params.loadSize)
+        }
+        return LoadResult.Page(
+            data = rows,
+            prevKey = when {
+                key == null -> null
+                params is LoadParams.Prepend -> if (rows.size < params.loadSize) null else rows.first().pagingKey()
+                else -> rows.firstOrNull()?.pagingKey() ?: key
+            },
+            nextKey = when {
+                params is LoadParams.Prepend -> rows.lastOrNull()?.pagingKey()
+                rows.size < params.loadSize -> null
+                else -> rows.last().pagingKey()
+            }
+        )
+    }
+
+    // Resume at the row closest to what was on screen; newer rows come back through prepends
+    override fun getRefreshKey(state: PagingState<TransactionKey, TransactionEntity>): TransactionKey? =
+        state.anchorPosition?.let { state.closestItemToPosition(it) }?.pagingKey()
+
+    private suspend fun latest(limit: Int): List<TransactionEntity> =
+        transactionDao.getTransactions(query.latest(limit))
+
+    private suspend fun olderThan(key: TransactionKey, limit: Int): List<TransactionEntity> =
+        transactionDao.getTransactions(query.olderThan(key.date, key.timestamp, key.id, limit))
+
+    private suspend fun newerThan(key: TransactionKey, limit: Int): List<TransactionEntity> =
+        transactionDao.getTransactions(query.newerThan(key.date, key.timestamp, key.id, limit))
+}
@@ -1,17 +1,72 @@
 package com.cashflow.app.data.repository
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.map
+import androidx.room.InvalidationTracker
+import androidx.room.withTransaction
 import com.cashflow.app.data.dao.*
 import com.cashflow.app.data.database.CashFlowDatabase
 import com.cashflow.app.data.entity.*
 import com.cashflow.app.data.model.*
+import com.cashflow.app.data.paging.TransactionPagingSource
 import com.cashflow.app.domain.model.*
+import com.cashflow.app.domain.projection.CashFlowProjection
+import com.cashflow.app.domain.projection.CashFlowProjector
+import com.cashflow.app.domain.projection.FutureOccurrences
+import com.cashflow.app.domain.projection.ProjectionChange
+import com.cashflow.app.domain.projection.ProjectionIndex
+import com.cashflow.app.domain.projection.ProjectionSnapshot
+import com.cashflow.app.domain.projection.ProjectionUpdate
+import com.cashflow.app.domain.projection.RecurrenceEngine
+import com.cashflow.app.domain.projection.Scenario
+import com.cashflow.app.domain.projection.ScenarioProjector
+import com.cashflow.app.domain.projection.occurrenceKey
 import com.cashflow.app.domain.repository.CashFlowRepository
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.ProducerScope
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.filterNotNull
 import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+import kotlinx.coroutines.flow.onSubscription
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 import kotlinx.datetime.*
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.builtins.serializer
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.decodeFromStream
+import kotlinx.serialization.json.encodeToStream
+import kotlinx.serialization.protobuf.ProtoBuf
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
 
 class CashFlowRepositoryImpl(
     private val accountDao: AccountDao,
@@ -19,45 +74,145 @@ class CashFlowRepositoryImpl(
     private val billDao: BillDao,
     private val billPaymentDao: BillPaymentDao,
     private val transactionDao: TransactionDao,
+    private val projectionDao: ProjectionDao,
+    private val checkpointDao: BalanceCheckpointDao,
+    private val backupDao: BackupDao,
+    private val searchDao: SearchDao,
+    private val reportDao: ReportDao,
+    private val occurrenceDao: OccurrenceDao,
     private val database: CashFlowDatabase
 ) : CashFlowRepository {
 
-    override fun getAllAccounts(): Flow<List<Account>> =
-        accountDao.getAllAccounts().map { entities ->
-            entities.map { it.toDomain() }
+    // Writes and snapshot reads are serialized so every ProjectionUpdate orders cleanly against a snapshot
+    private val writeMutex = Mutex()
+    private var writeSequence = 0L
+    private val projectionUpdates = MutableSharedFlow<ProjectionUpdate>(extraBufferCapacity = 64)
+
+    // Upcoming bill and income occurrences, shared by every screen that lists them. Read from the
+    // occurrences table when the first collector arrives, then patched per write; it is read again
+    // only for changes it cannot patch and once the day rolls over. The value is forgotten when the
+    // sharing stops, so a screen opened after a restore never starts from the old occurrences.
+    // A failed read or patch is handed to the collectors as a value and the next update reads
+    // everything again: nothing may escape into sharingScope, which has no handler and would take
+    // the process down.
+    private val sharingScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private val futureOccurrences: StateFlow<Result<FutureOccurrences>?> = channelFlow {
+        var current: FutureOccurrences? = null
+        suspend fun publish(next: suspend () -> FutureOccurrences) {
+            val occurrences = try {
+                next()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                current = null
+                send(Result.failure(e))
+                return
+            }
+            current = occurrences
+            send(Result.success(occurrences))
+        }
+        projectionUpdates
+            .onSubscription { publish { loadFutureOccurrences() } }
+            .collect { update ->
+                val today = today().toEpochDays()
+                // A rebuilding write (a restore, a schedule change) is always read again in full
+                val patchable = current?.takeIf { it.firstDay == today && ProjectionChange.Rebuild !in update.changes }
+                publish { patchable?.apply(update) ?: loadFutureOccurrences() }
+            }
+    }.stateIn(sharingScope, SharingStarted.WhileSubscribed(SHARING_TIMEOUT_MILLIS, replayExpirationMillis = 0), null)
+
+    private val futureBillOccurrences: Flow<Result<Map<Long, List<BillOccurrence>>>> = futureOccurrences
+        .filterNotNull()
+        .map { result -> result.map { it.bills } }
+
+    private val futureIncomeOccurrences: Flow<Result<Map<Long, List<IncomeOccurrence>>>> = futureOccurrences
+        .filterNotNull()
+        .map { result -> result.map { it.income } }
+
+    // One version counter per table, bumped by Room's InvalidationTracker after each commit that
+    // touched the table, whoever wrote it. Observers get a number, never the rows.
+    private val tableVersions = DataTable.values().associateWith { MutableStateFlow(0L) }
+    private val tableObserver = object : InvalidationTracker.Observer(DataTable.values().map { it.tableName }.toTypedArray()) {
+        override fun onInvalidated(tables: Set<String>) {
+            for ((table, version) in tableVersions) {
+                if (tables.any { it.equals(table.tableName, ignoreCase = true) }) version.update { it + 1 }
+            }
         }
+    }
+    private val observingTables = AtomicBoolean(false)
+
+    // Accounts, bills and income by id, shared by every screen. Each table is read once; the writes
+    // below then edit the rows in memory as they commit rather than having the lists queried again.
+    private val accountCache = RowCache(writeMutex, Account::id) { projectionDao.getAccounts().map { it.toDomain() } }
+    private val billCache = RowCache(writeMutex, Bill::id) { billDao.getBills().map { it.toDomain() } }
+    private val incomeCache = RowCache(writeMutex, Income::id) { incomeDao.getIncome().map { it.toDomain() } }
+
+    // Cache edits of the write in progress, applied only once it commits. Guarded by writeMutex.
+    private val pendingCacheEdits = mutableListOf<() -> Unit>()
+
+    // Sorted as the DAO queries they replace. A failed load ends the caller's collection with the
+    // error, as the DAO flows did, without reaching sharingScope; it is forgotten once the sharing
+    // stops, so the next collection loads the table again.
+    private val accounts: StateFlow<Result<List<Account>>?> = accountCache.observe()
+        .map { result -> result.map { rows -> rows.values.sortedWith(compareBy({ it.name }, { it.id })) } }
+        .stateIn(sharingScope, SharingStarted.WhileSubscribed(SHARING_TIMEOUT_MILLIS, replayExpirationMillis = 0), null)
 
-    override suspend fun getAccountById(id: Long): Account? =
-        accountDao.getAccountById(id)?.toDomain()
+    private val activeBills: StateFlow<Result<List<Bill>>?> = billCache.observe()
+        .map { result -> result.map { rows -> rows.values.filter { it.isActive }.sortedWith(compareBy({ it.startDate }, { it.id })) } }
+        .stateIn(sharingScope, SharingStarted.WhileSubscribed(SHARING_TIMEOUT_MILLIS, replayExpirationMillis = 0), null)
 
-    override suspend fun insertAccount(account: Account): Long =
-        accountDao.insertAccount(account.toEntity())
+    private val activeIncome: StateFlow<Result<List<Income>>?> = incomeCache.observe()
+        .map { result -> result.map { rows -> rows.values.filter { it.isActive }.sortedWith(compareBy({ it.startDate }, { it.id })) } }
+        .stateIn(sharingScope, SharingStarted.WhileSubscribed(SHARING_TIMEOUT_MILLIS, replayExpirationMillis = 0), null)
 
-    override suspend fun updateAccount(account: Account) {
+    override fun getAllAccounts(): Flow<List<Account>> = accounts.filterNotNull().map { it.getOrThrow() }
+
+    override suspend fun getAccountById(id: Long): Account? = accountCache.get()[id]
+
+    override suspend fun insertAccount(account: Account): Long = rebuilding {
+        accountDao.insertAccount(account.toEntity()).also {
+            logChange(BackupTable.ACCOUNTS, it)
+            cacheEdit { accountCache.put(account.copy(id = it)) }
+        }
+    }
+
+    override suspend fun updateAccount(account: Account) = rebuilding {
         accountDao.updateAccount(account.toEntity())
+        logChange(BackupTable.ACCOUNTS, account.id)
+        cacheEdit { accountCache.put(account) }
+        // Checkpoints are anchored to currentBalance, so an edited balance invalidates them
+        checkpointDao.deleteCheckpointsForAccount(account.id)
     }
 
-    override suspend fun deleteAccount(account: Account) {
+    override suspend fun deleteAccount(account: Account) = rebuilding {
         accountDao.deleteAccount(account.toEntity())
+        logChange(BackupTable.ACCOUNTS, account.id, ChangeOp.DELETE)
+        cacheEdit { accountCache.remove(account.id) }
     }
 
-    override fun getAllActiveIncome(): Flow<List<Income>> =
-        incomeDao.getAllActiveIncome().map { entities ->
-            entities.map { it.toDomain() }
-        }
+    override fun getAllActiveIncome(): Flow<List<Income>> = activeIncome.filterNotNull().map { it.getOrThrow() }
 
-    override suspend fun getIncomeById(id: Long): Income? =
-        incomeDao.getIncomeById(id)?.toDomain()
+    override suspend fun getIncomeById(id: Long): Income? = incomeCache.get()[id]
 
-    override suspend fun insertIncome(income: Income): Long =
-        incomeDao.insertIncome(income.toEntity())
+    override suspend fun insertIncome(income: Income): Long = rebuilding {
+        incomeDao.insertIncome(income.toEntity()).also {
+            logChange(BackupTable.INCOME, it)
+            rematerializeIncome(it)
+            cacheEdit { incomeCache.put(income.copy(id = it)) }
+        }
+    }
 
-    override suspend fun updateIncome(income: Income) {
+    override suspend fun updateIncome(income: Income) = rebuilding {
         incomeDao.updateIncome(income.toEntity())
+        logChange(BackupTable.INCOME, income.id)
+        rematerializeIncome(income.id)
+        cacheEdit { incomeCache.put(income) }
     }
 
-    override suspend fun deleteIncome(income: Income) {
+    override suspend fun deleteIncome(income: Income) = rebuilding {
         incomeDao.deleteIncome(income.toEntity())
+        logChange(BackupTable.INCOME, income.id, ChangeOp.DELETE)
+        cacheEdit { incomeCache.remove(income.id) }
     }
 
     override suspend fun getIncomeOverrides(incomeId: Long): Map<LocalDate, Double> {
@@ -65,33 +220,44 @@ class CashFlowRepositoryImpl(
         return overrides.associate { it.date to it.amount }
     }
 
-    override suspend fun setIncomeOverride(incomeId: Long, date: LocalDate, amount: Double) {
-        incomeDao.insertOverride(IncomeOverrideEntity(0, incomeId, date, amount))
+    override suspend fun setIncomeOverride(incomeId: Long, date: LocalDate, amount: Double) = publishing { changes ->
+        val id = incomeDao.insertOverride(IncomeOverrideEntity(0, incomeId, date, amount))
+        logChange(BackupTable.INCOME_OVERRIDES, id)
+        changes += ProjectionChange.IncomeOverrideChanged(incomeId, date, amount)
     }
 
-    override suspend fun removeIncomeOverride(incomeId: Long, date: LocalDate) {
+    override suspend fun removeIncomeOverride(incomeId: Long, date: LocalDate) = publishing { changes ->
         incomeDao.getOverride(incomeId, date)?.let {
             incomeDao.deleteOverride(it)
+            logChange(BackupTable.INCOME_OVERRIDES, it.id, ChangeOp.DELETE)
+            changes += ProjectionChange.IncomeOverrideChanged(incomeId, date, null)
         }
+        Unit
     }
 
-    override fun getAllActiveBills(): Flow<List<Bill>> =
-        billDao.getAllActiveBills().map { entities ->
-            entities.map { it.toDomain() }
-        }
+    override fun getAllActiveBills(): Flow<List<Bill>> = activeBills.filterNotNull().map { it.getOrThrow() }
 
-    override suspend fun getBillById(id: Long): Bill? =
-        billDao.getBillById(id)?.toDomain()
+    override suspend fun getBillById(id: Long): Bill? = billCache.get()[id]
 
-    override suspend fun insertBill(bill: Bill): Long =
-        billDao.insertBill(bill.toEntity())
+    override suspend fun insertBill(bill: Bill): Long = rebuilding {
+        billDao.insertBill(bill.toEntity()).also {
+            logChange(BackupTable.BILLS, it)
+            rematerializeBill(it)
+            cacheEdit { billCache.put(bill.copy(id = it)) }
+        }
+    }
 
-    override suspend fun updateBill(bill: Bill) {
+    override suspend fun updateBill(bill: Bill) = rebuilding {
         billDao.updateBill(bill.toEntity())
+        logChange(BackupTable.BILLS, bill.id)
+        rematerializeBill(bill.id)
+        cacheEdit { billCache.put(bill) }
     }
 
-    override suspend fun deleteBill(bill: Bill) {
+    override suspend fun deleteBill(bill: Bill) = rebuilding {
         billDao.deleteBill(bill.toEntity())
+        logChange(BackupTable.BILLS, bill.id, ChangeOp.DELETE)
+        cacheEdit { billCache.remove(bill.id) }
     }
 
     override suspend fun getBillOverrides(billId: Long): Map<LocalDate, Double> {
@@ -99,17 +265,22 @@ class CashFlowRepositoryImpl(
         return overrides.associate { it.date to it.amount }
     }
 
-    override suspend fun setBillOverride(billId: Long, date: LocalDate, amount: Double) {
-        billDao.insertOverride(BillOverrideEntity(0, billId, date, amount))
+    override suspend fun setBillOverride(billId: Long, date: LocalDate, amount: Double) = publishing { changes ->
+        val id = billDao.insertOverride(BillOverrideEntity(0, billId, date, amount))
+        logChange(BackupTable.BILL_OVERRIDES, id)
+        changes += ProjectionChange.BillOverrideChanged(billId, date, amount)
     }
 
-    override suspend fun removeBillOverride(billId: Long, date: LocalDate) {
+    override suspend fun removeBillOverride(billId: Long, date: LocalDate) = publishing { changes ->
         billDao.getOverride(billId, date)?.let {
             billDao.deleteOverride(it)
+            logChange(BackupTable.BILL_OVERRIDES, it.id, ChangeOp.DELETE)
+            changes += ProjectionChange.BillOverrideChanged(billId, date, null)
         }
+        Unit
     }
 
-    override suspend fun markBillAsPaid(billId: Long, dueDate: LocalDate, accountId: Long, amount: Double): Long {
+    override suspend fun markBillAsPaid(billId: Long, dueDate: LocalDate, accountId: Long, amount: Double): Long = publishing { changes ->
         val now = Clock.System.now()
         val timestamp = now.toLocalDateTime(TimeZone.currentSystemDefault())
         
@@ -125,7 +296,7 @@ class CashFlowRepositoryImpl(
             relatedBillId = billId
         )
         // insertTransaction automatically updates account balance
-        val transactionId = insertTransaction(transaction)
+        val transactionId = insertTransactionLocked(transaction, changes)
         
         // Create bill payment record
         val payment = BillPaymentEntity(
@@ -137,10 +308,13 @@ class CashFlowRepositoryImpl(
             timestamp = timestamp,
             transactionId = transactionId
         )
-        return billPaymentDao.insertPayment(payment)
+        billPaymentDao.insertPayment(payment).also {
+            logChange(BackupTable.BILL_PAYMENTS, it)
+            changes += ProjectionChange.BillPaid(billId, dueDate, accountId)
+        }
     }
 
-    override suspend fun markIncomeAsReceived(incomeId: Long, date: LocalDate, accountId: Long, amount: Double): Long {
+    override suspend fun markIncomeAsReceived(incomeId: Long, date: LocalDate, accountId: Long, amount: Double): Long = publishing { changes ->
         val now = Clock.System.now()
         val timestamp = now.toLocalDateTime(TimeZone.currentSystemDefault())
         
@@ -156,7 +330,7 @@ class CashFlowRepositoryImpl(
             relatedIncomeId = incomeId
         )
         // insertTransaction automatically updates account balance
-        return insertTransaction(transaction)
+        insertTransactionLocked(transaction, changes)
     }
 
     override suspend fun isBillPaid(billId: Long, dueDate: LocalDate): Boolean {
@@ -172,25 +346,29 @@ class CashFlowRepositoryImpl(
         val occurrences = mutableListOf<BillOccurrence>()
         val billOverrides = getBillOverrides(bill.id)
         val payments = billPaymentDao.getPaymentsForBill(bill.id).first()
-        val paymentMap = payments.associateBy { it.paymentDate }
+        val paidFrom = ProjectionIndex.paidBills(payments.map { it.toDomain() })
         
-        var currentDate = startDate
-        while (currentDate <= endDate) {
-            if (shouldOccurOnDate(bill.startDate, bill.endDate, bill.recurrenceType, currentDate)) {
-                val amount = billOverrides[currentDate] ?: bill.amount
-                val payment = paymentMap[currentDate]
-                occurrences.add(
-                    BillOccurrence(
-                        bill = bill,
-                        dueDate = currentDate,
-                        amount = amount,
-                        isPaid = payment != null,
-                        paymentDate = payment?.paymentDate,
-                        paidFromAccountId = payment?.accountId
-                    )
+        RecurrenceEngine.forEachOccurrence(
+            bill.startDate.toEpochDays(),
+            bill.endDate?.toEpochDays() ?: RecurrenceEngine.OPEN_END,
+            bill.recurrenceType,
+            startDate.toEpochDays(),
+            endDate.toEpochDays()
+        ) { day ->
+            val dueDate = LocalDate.fromEpochDays(day)
+            val amount = billOverrides[dueDate] ?: bill.amount
+            val key = occurrenceKey(bill.id, day)
+            val isPaid = paidFrom.containsKey(key)
+            occurrences.add(
+                BillOccurrence(
+                    bill = bill,
+                    dueDate = dueDate,
+                    amount = amount,
+                    isPaid = isPaid,
+                    paymentDate = if (isPaid) dueDate else null,
+                    paidFromAccountId = if (isPaid) paidFrom.getOrDefault(key, 0L) else null
                 )
-            }
-            currentDate = LocalDate.fromEpochDays(currentDate.toEpochDays() + 1)
+            )
         }
         return occurrences
     }
@@ -201,43 +379,155 @@ class CashFlowRepositoryImpl(
         
         // Get all transactions for this income to check if received
         val transactions = transactionDao.getTransactionsBetween(startDate, endDate).first().map { it.toDomain() }
+        val receivedInto = ProjectionIndex.receivedIncome(transactions)
         
-        var currentDate = startDate
-        while (currentDate <= endDate) {
-            if (shouldOccurOnDate(income.startDate, null, income.recurrenceType, currentDate)) {
-                val amount = incomeOverrides[currentDate] ?: income.amount
-                
-                // Check if this income occurrence has been received
-                val receivedTransaction = transactions.find { 
-                    it.type == com.cashflow.app.data.model.TransactionType.INCOME && 
-                    it.relatedIncomeId == income.id && 
-                    it.date == currentDate 
-                }
-                
-                occurrences.add(
-                    IncomeOccurrence(
-                        income = income,
-                        date = currentDate,
-                        amount = amount,
-                        isReceived = receivedTransaction != null,
-                        receivedDate = receivedTransaction?.date,
-                        receivedIntoAccountId = receivedTransaction?.accountId
-                    )
+        RecurrenceEngine.forEachOccurrence(
+            income.startDate.toEpochDays(),
+            RecurrenceEngine.OPEN_END,
+            income.recurrenceType,
+            startDate.toEpochDays(),
+            endDate.toEpochDays()
+        ) { day ->
+            val date = LocalDate.fromEpochDays(day)
+            val amount = incomeOverrides[date] ?: income.amount
+            
+            // Check if this income occurrence has been received
+            val key = occurrenceKey(income.id, day)
+            val isReceived = receivedInto.containsKey(key)
+            
+            occurrences.add(
+                IncomeOccurrence(
+                    income = income,
+                    date = date,
+                    amount = amount,
+                    isReceived = isReceived,
+                    receivedDate = if (isReceived) date else null,
+                    receivedIntoAccountId = if (isReceived) receivedInto.getOrDefault(key, 0L) else null
                 )
-            }
-            currentDate = LocalDate.fromEpochDays(currentDate.toEpochDays() + 1)
+            )
         }
         return occurrences
     }
 
-    override fun getAllTransactions(): Flow<List<Transaction>> =
-        transactionDao.getAllTransactions().map { entities ->
-            entities.map { it.toDomain() }
+    override fun observeFutureBillOccurrences(): Flow<Result<Map<Long, List<BillOccurrence>>>> = futureBillOccurrences
+
+    override fun observeFutureIncomeOccurrences(): Flow<Result<Map<Long, List<IncomeOccurrence>>>> = futureIncomeOccurrences
+
+    private suspend fun loadFutureOccurrences(): FutureOccurrences = readingOccurrences { today ->
+        val endDate = LocalDate.fromEpochDays(today.toEpochDays() + FUTURE_OCCURRENCE_DAYS)
+        val bills = projectionDao.getActiveBills().associate { it.id to it.toDomain() }
+        val income = projectionDao.getActiveIncome().associate { it.id to it.toDomain() }
+        FutureOccurrences.build(
+            startDate = today,
+            endDate = endDate,
+            bills = occurrenceDao.getOccurrencesBetween(OccurrenceSource.BILL, today, endDate)
+                .mapNotNull { row -> bills[row.sourceId]?.let { row.toBillOccurrence(it) } },
+            income = occurrenceDao.getOccurrencesBetween(OccurrenceSource.INCOME, today, endDate)
+                .mapNotNull { row -> income[row.sourceId]?.let { row.toIncomeOccurrence(it) } },
+            sequence = writeSequence
+        )
+    }
+
+    override suspend fun getDueBillReminders(): List<BillOccurrence> = readingOccurrences { today ->
+        val bills = projectionDao.getActiveBills().associate { it.id to it.toDomain() }
+        occurrenceDao.getDueBillReminders(today).mapNotNull { row -> bills[row.sourceId]?.let { row.toBillOccurrence(it) } }
+    }
+
+    override suspend fun extendOccurrenceWindow() = readingOccurrences { }
+
+    // Runs a read of the occurrences table under the write lock, after rolling the table's window
+    // forward to today, so the rows and writeSequence agree with each other
+    private suspend fun <T> readingOccurrences(block: suspend (today: LocalDate) -> T): T = writeMutex.withLock {
+        val today = today()
+        database.withTransaction {
+            ensureOccurrenceWindow(today)
+            block(today)
         }
+    }
 
-    override fun getTransactionsForAccount(accountId: Long): Flow<List<Transaction>> =
-        transactionDao.getTransactionsForAccount(accountId).map { entities ->
-            entities.map { it.toDomain() }
+    // Keeps the table covering OCCURRENCE_WINDOW_MONTHS from the start of today's month. Past months
+    // are dropped and only the days not yet covered are expanded; without a usable window (first run,
+    // restore, reset, a clock set back) the table is filled from scratch.
+    // Callers hold writeMutex inside a transaction.
+    private suspend fun ensureOccurrenceWindow(today: LocalDate) {
+        val startDate = LocalDate(today.year, today.month, 1)
+        val endDate = LocalDate.fromEpochDays(startDate.plus(OCCURRENCE_WINDOW_MONTHS, DateTimeUnit.MONTH).toEpochDays() - 1)
+        val window = occurrenceDao.getWindow()
+        when {
+            window != null && window.startDate == startDate && window.endDate >= endDate -> return
+            window == null || window.startDate > startDate || window.endDate < startDate -> {
+                occurrenceDao.deleteAllOccurrences()
+                materializeOccurrences(startDate, endDate)
+            }
+            else -> {
+                occurrenceDao.deleteOccurrencesBefore(startDate)
+                if (window.endDate < endDate) {
+                    materializeOccurrences(LocalDate.fromEpochDays(window.endDate.toEpochDays() + 1), endDate)
+                }
+            }
+        }
+        occurrenceDao.setWindow(OccurrenceWindowEntity(startDate = startDate, endDate = endDate))
+    }
+
+    // Expands every active schedule over [startDate, endDate] at its own amount, then folds in the
+    // overrides, payments and received income already recorded there
+    private suspend fun materializeOccurrences(startDate: LocalDate, endDate: LocalDate) {
+        val rows = projectionDao.getActiveBills().flatMap { it.occurrencesBetween(startDate, endDate) } +
+            projectionDao.getActiveIncome().flatMap { it.occurrencesBetween(startDate, endDate) }
+        for (batch in rows.chunked(IMPORT_BATCH_SIZE)) {
+            occurrenceDao.insertOccurrences(batch)
+        }
+        occurrenceDao.reconcileBillOccurrences(0, Long.MAX_VALUE, startDate, endDate)
+        occurrenceDao.reconcileIncomeOccurrences(0, Long.MAX_VALUE, startDate, endDate)
+    }
+
+    // Re-expands one schedule after it was written. Without a window nothing is kept yet; the next
+    // read fills the table from scratch.
+    private suspend fun rematerializeBill(id: Long) {
+        val window = occurrenceDao.getWindow() ?: return
+        occurrenceDao.deleteOccurrences(OccurrenceSource.BILL, id)
+        val bill = billDao.getBillById(id)?.takeIf { it.isActive } ?: return
+        occurrenceDao.insertOccurrences(bill.occurrencesBetween(window.startDate, window.endDate))
+        occurrenceDao.reconcileBillOccurrences(id, id, window.startDate, window.endDate)
+    }
+
+    private suspend fun rematerializeIncome(id: Long) {
+        val window = occurrenceDao.getWindow() ?: return
+        occurrenceDao.deleteOccurrences(OccurrenceSource.INCOME, id)
+        val income = incomeDao.getIncomeById(id)?.takeIf { it.isActive } ?: return
+        occurrenceDao.insertOccurrences(income.occurrencesBetween(window.startDate, window.endDate))
+        occurrenceDao.reconcileIncomeOccurrences(id, id, window.startDate, window.endDate)
+    }
+
+    // Restores and resets write schedules in bulk; dropping the window has the next read rebuild the table
+    private suspend fun discardOccurrences() {
+        occurrenceDao.deleteWindow()
+        occurrenceDao.deleteAllOccurrences()
+    }
+
+    private fun today(): LocalDate = Clock.System.now().toLocalDateTime(TimeZone.currentSystemDefault()).date
+
+    // A Pager its collector drops (another account picked, the screen closed) never invalidates its
+    // last source, which would stay registered with the InvalidationTracker; it is invalidated here
+    override fun getPagedTransactions(filter: TransactionFilter): Flow<PagingData<Transaction>> = flow {
+        var source: TransactionPagingSource? = null
+        try {
+            val pager = Pager(TRANSACTION_PAGING_CONFIG) {
+                TransactionPagingSource(database, transactionDao, filter).also { source = it }
+            }
+            emitAll(pager.flow)
+        } finally {
+            source?.invalidate()
+        }
+    }.map { page -> page.map { it.toDomain() } }
+
+    override fun getTransactionTotals(filter: TransactionFilter): Flow<TransactionTotals> =
+        transactionDao.observeTotals(TransactionFilterQuery(filter).totals()).map { rows ->
+            TransactionTotals(
+                count = rows.sumOf { it.count },
+                totalAmount = rows.sumOf { it.amount },
+                amountByType = rows.associate { it.type to it.amount }
+            )
         }
 
     override fun getTransactionsBetween(startDate: LocalDate, endDate: LocalDate): Flow<List<Transaction>> =
@@ -245,56 +535,50 @@ class CashFlowRepositoryImpl(
             entities.map { it.toDomain() }
         }
 
+    override fun search(text: String): Flow<PagingData<SearchHit>> {
+        val query = prefixMatchQuery(text) ?: return flowOf(PagingData.empty())
+        return Pager(SEARCH_PAGING_CONFIG) { searchDao.search(query) }
+            .flow
+            .map { page -> page.map { it.toDomain() } }
+    }
+
+    // Every word typed must start a word of the text. Quoting each term keeps FTS operators
+    // such as OR, NOT or a leading "-" in the input from being parsed as query syntax.
+    private fun prefixMatchQuery(text: String): String? {
+        val terms = text.split(NON_WORD).filter { it.isNotEmpty() }
+        if (terms.isEmpty()) return null
+        return terms.joinToString(" ") { "\"${it.lowercase()}*\"" }
+    }
+
     override suspend fun getTransactionById(id: Long): Transaction? {
         return transactionDao.getTransactionById(id)?.toDomain()
     }
     
-    override suspend fun insertTransaction(transaction: Transaction): Long {
+    override suspend fun insertTransaction(transaction: Transaction): Long = publishing { changes ->
+        insertTransactionLocked(transaction, changes)
+    }
+
+    private suspend fun insertTransactionLocked(transaction: Transaction, changes: MutableList<ProjectionChange>): Long {
         val transactionId = transactionDao.insertTransaction(transaction.toEntity())
+        logChange(BackupTable.TRANSACTIONS, transactionId)
+        changes += ProjectionChange.TransactionAdded(transaction.copy(id = transactionId))
         
         // Update account balance(s) based on transaction type
-        when (transaction.type) {
-            com.cashflow.app.data.model.TransactionType.TRANSFER -> {
-                // Transfer: deduct from source account, add to destination account
-                if (transaction.toAccountId != null) {
-                    // Deduct from source
-                    val fromAccount = accountDao.getAccountById(transaction.accountId)
-                    fromAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance - transaction.amount))
-                    }
-                    // Add to destination
-                    val toAccount = accountDao.getAccountById(transaction.toAccountId)
-                    toAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + transaction.amount))
-                    }
-                }
-            }
-            else -> {
-                // Other transaction types: only affect source account
-                val account = accountDao.getAccountById(transaction.accountId)
-                account?.let {
-                    val balanceChange = when (transaction.type) {
-                        com.cashflow.app.data.model.TransactionType.INCOME -> transaction.amount
-                        com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
-                        com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> -transaction.amount
-                        com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> transaction.amount
-                        else -> 0.0
-                    }
-                    accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + balanceChange))
-                }
-            }
-        }
+        applyTransactionEffect(transaction)
         
         return transactionId
     }
 
-    override suspend fun updateTransaction(transaction: Transaction) {
+    override suspend fun updateTransaction(transaction: Transaction) = publishing { changes ->
         // Get the old transaction to calculate balance difference
         val oldTransactionEntity = transactionDao.getTransactionById(transaction.id)
         val oldTransaction = oldTransactionEntity?.toDomain()
         
         // Update the transaction
         transactionDao.updateTransaction(transaction.toEntity())
+        logChange(BackupTable.TRANSACTIONS, transaction.id)
+        oldTransaction?.let { changes += ProjectionChange.TransactionRemoved(it) }
+        changes += ProjectionChange.TransactionAdded(transaction)
         
         // Adjust account balances
         if (oldTransaction != null) {
@@ -314,28 +598,19 @@ class CashFlowRepositoryImpl(
             com.cashflow.app.data.model.TransactionType.TRANSFER -> {
                 if (transaction.toAccountId != null) {
                     // Reverse transfer: add back to source, subtract from destination
-                    val fromAccount = accountDao.getAccountById(transaction.accountId)
-                    fromAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + transaction.amount))
-                    }
-                    val toAccount = accountDao.getAccountById(transaction.toAccountId)
-                    toAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance - transaction.amount))
-                    }
+                    adjustBalance(transaction.accountId, transaction.date, transaction.amount)
+                    adjustBalance(transaction.toAccountId, transaction.date, -transaction.amount)
                 }
             }
             else -> {
-                val account = accountDao.getAccountById(transaction.accountId)
-                account?.let {
-                    val balanceChange = when (transaction.type) {
-                        com.cashflow.app.data.model.TransactionType.INCOME -> -transaction.amount
-                        com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
-                        com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> transaction.amount
-                        com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> -transaction.amount
-                        else -> 0.0
-                    }
-                    accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + balanceChange))
+                val balanceChange = when (transaction.type) {
+                    com.cashflow.app.data.model.TransactionType.INCOME -> -transaction.amount
+                    com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
+                    com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> transaction.amount
+                    com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> -transaction.amount
+                    else -> 0.0
                 }
+                adjustBalance(transaction.accountId, transaction.date, balanceChange)
             }
         }
     }
@@ -345,46 +620,56 @@ class CashFlowRepositoryImpl(
             com.cashflow.app.data.model.TransactionType.TRANSFER -> {
                 if (transaction.toAccountId != null) {
                     // Transfer: deduct from source, add to destination
-                    val fromAccount = accountDao.getAccountById(transaction.accountId)
-                    fromAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance - transaction.amount))
-                    }
-                    val toAccount = accountDao.getAccountById(transaction.toAccountId)
-                    toAccount?.let {
-                        accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + transaction.amount))
-                    }
+                    adjustBalance(transaction.accountId, transaction.date, -transaction.amount)
+                    adjustBalance(transaction.toAccountId, transaction.date, transaction.amount)
                 }
             }
             else -> {
-                val account = accountDao.getAccountById(transaction.accountId)
-                account?.let {
-                    val balanceChange = when (transaction.type) {
-                        com.cashflow.app.data.model.TransactionType.INCOME -> transaction.amount
-                        com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
-                        com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> -transaction.amount
-                        com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> transaction.amount
-                        else -> 0.0
-                    }
-                    accountDao.updateAccount(it.copy(currentBalance = it.currentBalance + balanceChange))
+                // Other transaction types: only affect source account
+                val balanceChange = when (transaction.type) {
+                    com.cashflow.app.data.model.TransactionType.INCOME -> transaction.amount
+                    com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
+                    com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> -transaction.amount
+                    com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> transaction.amount
+                    else -> 0.0
                 }
+                adjustBalance(transaction.accountId, transaction.date, balanceChange)
             }
         }
     }
 
-    override suspend fun deleteTransaction(transaction: Transaction) {
+    // Moves an account's current balance and every month-end checkpoint from the transaction date on
+    private suspend fun adjustBalance(accountId: Long, date: LocalDate, change: Double) {
+        if (change == 0.0) return
+        accountDao.addToBalance(accountId, change)
+        logChange(BackupTable.ACCOUNTS, accountId)
+        cacheEdit { accountCache.change(accountId) { it.copy(currentBalance = it.currentBalance + change) } }
+        checkpointDao.shiftCheckpoints(accountId, date, change)
+    }
+
+    override suspend fun deleteTransaction(transaction: Transaction) = publishing { changes ->
         // Get the transaction before deleting to reverse its effect
         val transactionEntity = transactionDao.getTransactionById(transaction.id)
         val transactionToDelete = transactionEntity?.toDomain() ?: transaction
         
         // Delete the transaction
         transactionDao.deleteTransaction(transaction.toEntity())
+        logChange(BackupTable.TRANSACTIONS, transaction.id, ChangeOp.DELETE)
+        changes += ProjectionChange.TransactionRemoved(transactionToDelete)
         
         // Reverse the transaction's effect on account balance(s)
         reverseTransactionEffect(transactionToDelete)
     }
     
-    override suspend fun clearAllData() = withContext(Dispatchers.IO) {
+    override suspend fun clearAllData() = rebuilding {
+        clearAllTables()
+        resetChangeLog(restoredSequence = 0)
+    }
+
+    private suspend fun clearAllTables() = withContext(Dispatchers.IO) {
         // Clear all data from all tables in proper order (respecting foreign keys)
+        checkpointDao.deleteAllCheckpoints()
+        discardOccurrences()
         billPaymentDao.deleteAllPayments()
         transactionDao.deleteAllTransactions()
         billDao.deleteAllOverrides()
@@ -392,260 +677,481 @@ class CashFlowRepositoryImpl(
         incomeDao.deleteAllOverrides()
         incomeDao.deleteAllIncome()
         accountDao.deleteAllAccounts()
+        cacheEdit { dropCaches() }
     }
     
-    override suspend fun exportData(): String = withContext(Dispatchers.IO) {
-        val accounts = accountDao.getAllAccounts().first()
-        val income = incomeDao.getAllActiveIncome().first()
-        val bills = billDao.getAllActiveBills().first()
-        val transactions = transactionDao.getAllTransactions().first()
-        
-        // Get all overrides
-        val incomeOverrides = mutableListOf<com.cashflow.app.data.entity.IncomeOverrideEntity>()
-        income.forEach { inc ->
-            incomeOverrides.addAll(incomeDao.getOverridesForIncome(inc.id).first())
-        }
-        
-        val billOverrides = mutableListOf<com.cashflow.app.data.entity.BillOverrideEntity>()
-        bills.forEach { bill ->
-            billOverrides.addAll(billDao.getOverridesForBill(bill.id).first())
+    // Streams every table to the output a keyset page at a time, so memory stays flat however
+    // large the ledger is. One read transaction keeps the file a consistent snapshot.
+    override suspend fun exportData(output: OutputStream, format: BackupFormat): Unit = withContext(Dispatchers.IO) {
+        when (format) {
+            BackupFormat.JSON -> exportJson(output, compress = false)
+            BackupFormat.JSON_GZIP -> exportJson(output, compress = true)
+            BackupFormat.BINARY -> exportBinary(output, incremental = false)
         }
-        
-        // Get all bill payments
-        val billPayments = mutableListOf<com.cashflow.app.data.entity.BillPaymentEntity>()
-        bills.forEach { bill ->
-            billPayments.addAll(billPaymentDao.getPaymentsForBill(bill.id).first())
-        }
-        
-        val exportData = com.cashflow.app.data.model.ExportData(
-            version = 1,
-            exportDate = Clock.System.now().toString(),
-            accounts = accounts.map { it.toSerializable() },
-            income = income.map { it.toSerializable() },
-            incomeOverrides = incomeOverrides.map { it.toSerializable() },
-            bills = bills.map { it.toSerializable() },
-            billOverrides = billOverrides.map { it.toSerializable() },
-            billPayments = billPayments.map { it.toSerializable() },
-            transactions = transactions.map { it.toSerializable() }
-        )
-        
-        val json = kotlinx.serialization.json.Json {
-            prettyPrint = true
-            ignoreUnknownKeys = true
+    }
+
+    override suspend fun exportIncrementalData(output: OutputStream): Boolean = withContext(Dispatchers.IO) {
+        exportBinary(output, incremental = true)
+    }
+
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun exportJson(output: OutputStream, compress: Boolean) {
+        val gzip = if (compress) GZIPOutputStream(output, EXPORT_BUFFER_SIZE) else null
+        val stream = (gzip ?: output).buffered(EXPORT_BUFFER_SIZE)
+        database.withTransaction {
+            // Same shape as ExportData, written field by field
+            stream.write("{\"version\":1,\"exportDate\":".toByteArray())
+            backupJson.encodeToStream(String.serializer(), Clock.System.now().toString(), stream)
+            stream.writeRows("accounts", SerializableAccount.serializer(), accountDao::getAccountsAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("income", SerializableIncome.serializer(), incomeDao::getIncomeAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("incomeOverrides", SerializableIncomeOverride.serializer(), incomeDao::getOverridesAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("bills", SerializableBill.serializer(), billDao::getBillsAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("billOverrides", SerializableBillOverride.serializer(), billDao::getOverridesAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("billPayments", SerializableBillPayment.serializer(), billPaymentDao::getPaymentsAfter, { it.id }, { it.toSerializable() })
+            stream.writeRows("transactions", SerializableTransaction.serializer(), transactionDao::getTransactionsAfter, { it.id }, { it.toSerializable() })
+            stream.write('}'.code)
         }
-        return@withContext json.encodeToString(
-            com.cashflow.app.data.model.ExportData.serializer(),
-            exportData
-        )
+        stream.flush()
+        // The caller owns the output, so finish the gzip trailer without closing it
+        gzip?.finish()
     }
-    
-    override suspend fun importData(jsonData: String): Result<Unit> {
-        return withContext(Dispatchers.IO) {
-            try {
-                val json = kotlinx.serialization.json.Json {
-                    ignoreUnknownKeys = true
-                    isLenient = true
-                }
-                val exportData = json.decodeFromString(
-                    com.cashflow.app.data.model.ExportData.serializer(),
-                    jsonData
+
+    // Writes ,"name":[row,row,...] with each row encoded as it is read
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun <E, S> OutputStream.writeRows(
+        name: String,
+        serializer: KSerializer<S>,
+        page: suspend (afterId: Long, limit: Int) -> List<E>,
+        id: (E) -> Long,
+        toSerializable: (E) -> S
+    ) {
+        write(",\"$name\":[".toByteArray())
+        var afterId = Long.MIN_VALUE
+        var first = true
+        do {
+            val rows = page(afterId, EXPORT_PAGE_SIZE)
+            for (row in rows) {
+                if (!first) write(','.code)
+                first = false
+                backupJson.encodeToStream(serializer, toSerializable(row), this)
+            }
+            if (rows.isNotEmpty()) afterId = id(rows.last())
+        } while (rows.size == EXPORT_PAGE_SIZE)
+        write(']'.code)
+    }
+
+    // Magic and version stay outside the gzip stream so importers can pick a format before inflating.
+    // Returns true for an incremental backup; without a usable base a full one is written instead.
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun exportBinary(output: OutputStream, incremental: Boolean): Boolean {
+        output.write(BINARY_BACKUP_MAGIC)
+        output.write(BINARY_BACKUP_VERSION)
+        val gzip = GZIPOutputStream(output, EXPORT_BUFFER_SIZE)
+        val sink = gzip.buffered(EXPORT_BUFFER_SIZE)
+        val codec = BinaryBackupCodec()
+        val wroteIncrement = database.withTransaction {
+            val base = if (incremental) incrementalBase() else null
+            val sequence = backupDao.insertChange(
+                ChangeLogEntity(
+                    entity = null,
+                    entityId = 0,
+                    op = if (base != null) ChangeOp.INCREMENTAL_BACKUP else ChangeOp.FULL_BACKUP
                 )
-                
-                // Clear existing data first (in proper order)
-                billPaymentDao.deleteAllPayments()
-                transactionDao.deleteAllTransactions()
-                billDao.deleteAllOverrides()
-                billDao.deleteAllBills()
-                incomeDao.deleteAllOverrides()
-                incomeDao.deleteAllIncome()
-                accountDao.deleteAllAccounts()
-                
-                // Import accounts first (they're referenced by other entities)
-                exportData.accounts.forEach { serializableAccount ->
-                    accountDao.insertAccount(serializableAccount.toEntity())
-                }
-                
-                // Import income
-                exportData.income.forEach { serializableIncome ->
-                    incomeDao.insertIncome(serializableIncome.toEntity())
-                }
-                
-                // Import income overrides
-                exportData.incomeOverrides.forEach { override ->
-                    incomeDao.insertOverride(override.toEntity())
-                }
-                
-                // Import bills
-                exportData.bills.forEach { serializableBill ->
-                    billDao.insertBill(serializableBill.toEntity())
-                }
-                
-                // Import bill overrides
-                exportData.billOverrides.forEach { override ->
-                    billDao.insertOverride(override.toEntity())
-                }
-                
-                // Import transactions
-                exportData.transactions.forEach { serializableTransaction ->
-                    transactionDao.insertTransaction(serializableTransaction.toEntity())
-                }
-                
-                // Import bill payments
-                exportData.billPayments.forEach { payment ->
-                    billPaymentDao.insertPayment(payment.toEntity())
+            )
+            val header = BinaryBackupHeader(
+                exportDate = Clock.System.now().toString(),
+                totalRows = if (base != null) backupDao.countChangedRows(base) else backupDao.countRows(),
+                sequence = sequence,
+                baseSequence = base ?: 0
+            )
+            sink.writeFrame(ProtoBuf.encodeToByteArray(BinaryBackupHeader.serializer(), header))
+            // Restore order, so each chunk can be inserted as soon as it is read back
+            if (base != null) {
+                for (deletes in backupDao.getDeletesSince(base).chunked(EXPORT_PAGE_SIZE)) {
+                    sink.writeFrame(ProtoBuf.encodeToByteArray(BackupChunk.serializer(), codec.encodeDeletes(deletes)))
                 }
-                
-                Result.success(Unit)
-            } catch (e: Exception) {
-                Result.failure(e)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedAccountsAfter(base, afterId, limit) }, { it.id }, codec::encodeAccounts)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedIncomeAfter(base, afterId, limit) }, { it.id }, codec::encodeIncome)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedIncomeOverridesAfter(base, afterId, limit) }, { it.id }, codec::encodeIncomeOverrides)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedBillsAfter(base, afterId, limit) }, { it.id }, codec::encodeBills)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedBillOverridesAfter(base, afterId, limit) }, { it.id }, codec::encodeBillOverrides)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedTransactionsAfter(base, afterId, limit) }, { it.id }, codec::encodeTransactions)
+                sink.writeChunks({ afterId, limit -> backupDao.getChangedPaymentsAfter(base, afterId, limit) }, { it.id }, codec::encodeBillPayments)
+            } else {
+                sink.writeChunks(accountDao::getAccountsAfter, { it.id }, codec::encodeAccounts)
+                sink.writeChunks(incomeDao::getIncomeAfter, { it.id }, codec::encodeIncome)
+                sink.writeChunks(incomeDao::getOverridesAfter, { it.id }, codec::encodeIncomeOverrides)
+                sink.writeChunks(billDao::getBillsAfter, { it.id }, codec::encodeBills)
+                sink.writeChunks(billDao::getOverridesAfter, { it.id }, codec::encodeBillOverrides)
+                sink.writeChunks(transactionDao::getTransactionsAfter, { it.id }, codec::encodeTransactions)
+                sink.writeChunks(billPaymentDao::getPaymentsAfter, { it.id }, codec::encodeBillPayments)
             }
+            // The backup must be completely written before the log is trimmed; a failed flush rolls
+            // back the marker and the trim, so the next increment still builds on the last good backup
+            sink.flush()
+            gzip.finish()
+            output.flush()
+            // Everything logged before the marker is now in a backup. Increment markers are kept
+            // until the next full backup so they can be counted.
+            backupDao.trimChangesBefore(sequence, dropMarkers = base == null)
+            base != null
         }
+        return wroteIncrement
     }
 
-    override suspend fun calculateCashFlow(
-        startDate: LocalDate,
-        endDate: LocalDate,
-        accounts: List<Account>
-    ): List<CashFlowDay> {
-        val incomeEntities = incomeDao.getAllActiveIncome().first()
-        val billEntities = billDao.getAllActiveBills().first()
-        val transactionEntities = transactionDao.getTransactionsBetween(startDate, endDate).first()
-        
-        val incomeList = incomeEntities.map { it.toDomain() }
-        val billList = billEntities.map { it.toDomain() }
-        val transactionList = transactionEntities.map { it.toDomain() }
+    // Sequence of the backup the next increment can build on, or null when a full backup is needed:
+    // none was taken since the last restore, or enough increments have piled up to compact them
+    private suspend fun incrementalBase(): Long? {
+        val marker = backupDao.getLastMarker() ?: return null
+        if (marker.op == ChangeOp.RESTORED) return null
+        if (backupDao.countIncrementsSinceFullBackup() >= MAX_INCREMENTS_PER_FULL_BACKUP) return null
+        return marker.sequence
+    }
 
-        // Get all overrides - map by domain model for easier lookup
-        val incomeOverrides = incomeList.associateWith { income ->
-            val overrides = incomeDao.getOverridesForIncome(income.id).first()
-            overrides.associate { it.date to it.amount }
-        }
+    // After a restore or wipe the log restarts from one marker naming the backup now in the
+    // database, which is the only base an incremental restore may be applied on
+    private suspend fun resetChangeLog(restoredSequence: Long) {
+        backupDao.deleteAllChanges()
+        backupDao.insertChange(ChangeLogEntity(entity = null, entityId = restoredSequence, op = ChangeOp.RESTORED))
+    }
 
-        val billOverrides = billList.associateWith { bill ->
-            val overrides = billDao.getOverridesForBill(bill.id).first()
-            overrides.associate { it.date to it.amount }
+    private suspend fun logChange(table: BackupTable, id: Long, op: ChangeOp = ChangeOp.UPSERT) {
+        backupDao.insertChange(ChangeLogEntity(entity = table, entityId = id, op = op))
+    }
+
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun <E> OutputStream.writeChunks(
+        page: suspend (afterId: Long, limit: Int) -> List<E>,
+        id: (E) -> Long,
+        encode: (List<E>) -> BackupChunk
+    ) {
+        var afterId = Long.MIN_VALUE
+        while (true) {
+            val rows = page(afterId, EXPORT_PAGE_SIZE)
+            if (rows.isEmpty()) return
+            writeFrame(ProtoBuf.encodeToByteArray(BackupChunk.serializer(), encode(rows)))
+            if (rows.size < EXPORT_PAGE_SIZE) return
+            afterId = id(rows.last())
         }
+    }
 
-        // Calculate starting balance: use current account balances, but EXCLUDE
-        // transactions in our date range (since we'll process them below)
-        var currentBalance = accounts.sumOf { it.currentBalance }
-        
-        // Subtract transactions in our date range from the starting balance
-        // since they're already included in currentBalance but we'll add them back below
-        for (transaction in transactionList) {
-            if (transaction.date >= startDate) {
-                when (transaction.type) {
-                    com.cashflow.app.data.model.TransactionType.INCOME -> currentBalance -= transaction.amount
-                    com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
-                    com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> currentBalance += transaction.amount
-                    com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> currentBalance -= transaction.amount
-                    com.cashflow.app.data.model.TransactionType.TRANSFER -> { /* No change to total */ }
-                }
+    // Replaces all data in one transaction, so a bad file leaves the existing data untouched.
+    // Progress is conflated; the last emission is always the total.
+    override fun importData(input: InputStream): Flow<ImportProgress> = channelFlow {
+        send(ImportProgress(rowsImported = 0, totalRows = 0))
+        val source = input.buffered(EXPORT_BUFFER_SIZE)
+        if (source.startsWith(BINARY_BACKUP_MAGIC)) importBinary(source) else importJson(source.decompressed())
+    }.conflate().flowOn(Dispatchers.IO)
+
+    // Decodes straight from the stream before taking the write lock, so a malformed file blocks nothing
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun ProducerScope<ImportProgress>.importJson(input: InputStream) {
+        val exportData = backupJson.decodeFromStream(ExportData.serializer(), input)
+        val totalRows = exportData.accounts.size + exportData.income.size +
+            exportData.incomeOverrides.size + exportData.bills.size + exportData.billOverrides.size +
+            exportData.transactions.size + exportData.billPayments.size
+        var rowsImported = 0
+        suspend fun <S, E> importRows(rows: List<S>, toEntity: (S) -> E, insert: suspend (List<E>) -> Unit) {
+            for (batch in rows.chunked(IMPORT_BATCH_SIZE)) {
+                insert(batch.map(toEntity))
+                rowsImported += batch.size
+                send(ImportProgress(rowsImported, totalRows))
             }
         }
 
-        val cashFlowDays = mutableListOf<CashFlowDay>()
-        var currentDate = startDate
-
-        while (currentDate <= endDate) {
-            val dayIncome = mutableListOf<IncomeEvent>()
-            val dayBills = mutableListOf<BillEvent>()
-            val dayTransactions = mutableListOf<Transaction>()
-
-            // Process income (skip if already received)
-            for (income in incomeList) {
-                if (shouldOccurOnDate(income.startDate, null, income.recurrenceType, currentDate)) {
-                    // Check if income was already received (has transaction with relatedIncomeId)
-                    val isReceived = transactionList.any { 
-                        it.type == com.cashflow.app.data.model.TransactionType.INCOME && 
-                        it.relatedIncomeId == income.id && 
-                        it.date == currentDate 
-                    }
-                    if (!isReceived) {
-                        // Only add to projected income and balance if not yet received
-                        val amount = incomeOverrides[income]?.get(currentDate) ?: income.amount
-                        dayIncome.add(IncomeEvent(income.id, income.name, amount, income.accountId))
-                        currentBalance += amount
-                    }
-                    // If received, it will show up in transactions instead, so don't add to dayIncome
-                }
-            }
+        rebuilding {
+            // Clear existing data first (in proper order)
+            clearAllTables()
+
+            // Parents before the rows that reference them
+            importRows(exportData.accounts, { it.toEntity() }, accountDao::insertAccounts)
+            importRows(exportData.income, { it.toEntity() }, incomeDao::insertAllIncome)
+            importRows(exportData.incomeOverrides, { it.toEntity() }, incomeDao::insertOverrides)
+            importRows(exportData.bills, { it.toEntity() }, billDao::insertBills)
+            importRows(exportData.billOverrides, { it.toEntity() }, billDao::insertOverrides)
+            importRows(exportData.transactions, { it.toEntity() }, transactionDao::insertTransactions)
+            importRows(exportData.billPayments, { it.toEntity() }, billPaymentDao::insertPayments)
 
-            // Process bills (skip if already paid)
-            for (bill in billList) {
-                if (shouldOccurOnDate(bill.startDate, bill.endDate, bill.recurrenceType, currentDate)) {
-                    // Check if bill is paid for this date
-                    val isPaid = billPaymentDao.getPayment(bill.id, currentDate) != null
-                    if (!isPaid) {
-                        val amount = billOverrides[bill]?.get(currentDate) ?: bill.amount
-                        dayBills.add(BillEvent(bill.id, bill.name, amount))
-                        currentBalance -= amount
-                    }
+            // JSON backups carry no change-log position, so nothing can be replayed on top of one
+            resetChangeLog(restoredSequence = 0)
+        }
+    }
+
+    // Chunks arrive in restore order, so each is decoded and applied as it is read; nothing is buffered.
+    // A full backup replaces all data; an incremental one replays on top of the backup before it.
+    @OptIn(ExperimentalSerializationApi::class)
+    private suspend fun ProducerScope<ImportProgress>.importBinary(input: InputStream) {
+        repeat(BINARY_BACKUP_MAGIC.size) { input.read() }
+        val version = input.read()
+        if (version !in 1..BINARY_BACKUP_VERSION) {
+            throw IOException("Unsupported backup format version $version; update the app to restore it")
+        }
+        val frames = GZIPInputStream(input, EXPORT_BUFFER_SIZE).buffered(EXPORT_BUFFER_SIZE)
+        val header = ProtoBuf.decodeFromByteArray(
+            BinaryBackupHeader.serializer(),
+            frames.readFrame() ?: throw EOFException("Backup file is empty")
+        )
+        send(ImportProgress(rowsImported = 0, totalRows = header.totalRows))
+        val codec = BinaryBackupCodec()
+        var rowsImported = 0
+
+        rebuilding {
+            if (header.isIncremental) {
+                val last = backupDao.getLastChange()
+                if (last == null || last.op != ChangeOp.RESTORED || last.entityId != header.baseSequence) {
+                    throw IOException(
+                        "This is an incremental backup. Restore the full backup and every increment before it " +
+                            "first, without making changes in between."
+                    )
                 }
+            } else {
+                clearAllTables()
             }
+            while (true) {
+                val frame = frames.readFrame() ?: break
+                val rows = codec.decode(ProtoBuf.decodeFromByteArray(BackupChunk.serializer(), frame))
+                deleteRows(rows.deletes)
+                backupDao.upsertAccounts(rows.accounts)
+                backupDao.upsertIncome(rows.income)
+                incomeDao.insertOverrides(rows.incomeOverrides)
+                backupDao.upsertBills(rows.bills)
+                billDao.insertOverrides(rows.billOverrides)
+                backupDao.upsertTransactions(rows.transactions)
+                billPaymentDao.insertPayments(rows.billPayments)
+                rowsImported += rows.size
+                send(ImportProgress(rowsImported, header.totalRows))
+            }
+            // Replayed balances no longer match the month-end checkpoints derived from the old ones,
+            // nor replayed schedules the materialized occurrences
+            if (header.isIncremental) {
+                checkpointDao.deleteAllCheckpoints()
+                discardOccurrences()
+                cacheEdit { dropCaches() }
+            }
+            resetChangeLog(restoredSequence = header.sequence)
+        }
+    }
 
-            // Process transactions
-            for (transaction in transactionList) {
-                if (transaction.date == currentDate) {
-                    dayTransactions.add(transaction)
-                    when (transaction.type) {
-                        com.cashflow.app.data.model.TransactionType.INCOME -> currentBalance += transaction.amount
-                        com.cashflow.app.data.model.TransactionType.BILL_PAYMENT,
-                        com.cashflow.app.data.model.TransactionType.CREDIT_CARD_PAYMENT -> currentBalance -= transaction.amount
-                        com.cashflow.app.data.model.TransactionType.MANUAL_ADJUSTMENT -> {
-                            // Manual adjustments can be positive or negative
-                            // For simplicity, we'll treat amount as the change
-                            currentBalance += transaction.amount
-                        }
-                        com.cashflow.app.data.model.TransactionType.TRANSFER -> {
-                            // Transfers don't affect total cash balance (just move money between accounts)
-                            // No change to currentBalance
-                        }
-                    }
-                }
+    private suspend fun deleteRows(deletes: List<ChangeLogEntity>) {
+        for ((table, rows) in deletes.groupBy { it.entity }) {
+            val ids = rows.map { it.entityId }
+            when (table) {
+                BackupTable.ACCOUNTS -> backupDao.deleteAccounts(ids)
+                BackupTable.INCOME -> backupDao.deleteIncome(ids)
+                BackupTable.INCOME_OVERRIDES -> backupDao.deleteIncomeOverrides(ids)
+                BackupTable.BILLS -> backupDao.deleteBills(ids)
+                BackupTable.BILL_OVERRIDES -> backupDao.deleteBillOverrides(ids)
+                BackupTable.TRANSACTIONS -> backupDao.deleteTransactions(ids)
+                BackupTable.BILL_PAYMENTS -> backupDao.deletePayments(ids)
+                null -> Unit
             }
+        }
+    }
 
-            val isNegative = currentBalance < 0
-            val isWarning = currentBalance >= 0 && currentBalance < 100
-
-            cashFlowDays.add(
-                CashFlowDay(
-                    date = currentDate,
-                    balance = currentBalance,
-                    isNegative = isNegative,
-                    isWarning = isWarning,
-                    income = dayIncome,
-                    bills = dayBills,
-                    transactions = dayTransactions
-                )
-            )
+    // Peeks at the first bytes without consuming them
+    private fun InputStream.startsWith(prefix: ByteArray): Boolean {
+        mark(prefix.size)
+        val matches = prefix.all { read() == it.toInt() and 0xFF }
+        reset()
+        return matches
+    }
+
+    // Transparently unwraps gzip-compressed JSON
+    private fun InputStream.decompressed(): InputStream {
+        mark(2)
+        val magic = read() or (read() shl 8)
+        reset()
+        return if (magic == GZIPInputStream.GZIP_MAGIC) GZIPInputStream(this, EXPORT_BUFFER_SIZE) else this
+    }
+
+    override fun observeTableVersion(table: DataTable): Flow<Long> =
+        tableVersions.getValue(table).onStart { observeTables() }
+
+    // The versions only grow, so their sum changes exactly when one of them does
+    override fun observeChanges(vararg tables: DataTable): Flow<Unit> =
+        combine(tables.map { observeTableVersion(it) }) { versions -> versions.sum() }.map { }
 
-            currentDate = LocalDate.fromEpochDays(currentDate.toEpochDays() + 1)
+    // Registered on first use; adding an observer syncs Room's triggers, so it stays off the main thread
+    private suspend fun observeTables() {
+        if (observingTables.compareAndSet(false, true)) {
+            withContext(Dispatchers.IO) { database.invalidationTracker.addObserver(tableObserver) }
         }
+    }
+
+    override fun observeProjectionUpdates(): Flow<ProjectionUpdate> = projectionUpdates.asSharedFlow()
+
+    override suspend fun loadProjectionSnapshot(startDate: LocalDate, endDate: LocalDate): ProjectionSnapshot {
+        // Read under the write lock so the snapshot's sequence matches exactly the writes it contains
+        val (rows, sequence) = writeMutex.withLock {
+            projectionDao.loadSnapshot(startDate, endDate) to writeSequence
+        }
+        return ProjectionSnapshot(
+            startDate = startDate,
+            endDate = endDate,
+            accounts = rows.accounts.map { it.toDomain() },
+            income = rows.income.map { it.toDomain() },
+            bills = rows.bills.map { it.toDomain() },
+            incomeOverrides = rows.incomeOverrides
+                .groupBy { it.incomeId }
+                .mapValues { (_, overrides) -> overrides.associate { it.date to it.amount } },
+            billOverrides = rows.billOverrides
+                .groupBy { it.billId }
+                .mapValues { (_, overrides) -> overrides.associate { it.date to it.amount } },
+            billPayments = rows.billPayments.map { it.toDomain() },
+            transactions = rows.transactions.map { it.toDomain() },
+            sequence = sequence
+        )
+    }
+
+    override suspend fun loadProjection(startDate: LocalDate, endDate: LocalDate): CashFlowProjection =
+        CashFlowProjection.build(loadProjectionSnapshot(startDate, endDate))
 
-        return cashFlowDays
+    // What-if projections read the database once and never write to it
+    override suspend fun loadScenarioProjector(startDate: LocalDate, endDate: LocalDate): ScenarioProjector =
+        ScenarioProjector(loadProjectionSnapshot(startDate, endDate))
+
+    override suspend fun projectScenario(startDate: LocalDate, endDate: LocalDate, scenario: Scenario): List<CashFlowDay> =
+        loadScenarioProjector(startDate, endDate).project(scenario).days()
+
+    override suspend fun calculateCashFlow(
+        startDate: LocalDate,
+        endDate: LocalDate,
+        accounts: List<Account>
+    ): List<CashFlowDay> {
+        val snapshot = loadProjectionSnapshot(startDate, endDate)
+        return CashFlowProjector.project(snapshot, accounts)
+    }
+
+    override fun getMonthlyTotals(startDate: LocalDate, endDate: LocalDate, accountId: Long?): Flow<List<MonthlyTotals>> {
+        val fromMonth = startDate.year * 100 + startDate.monthNumber
+        val toMonth = endDate.year * 100 + endDate.monthNumber
+        val rows = if (accountId == null) {
+            reportDao.observeMonthlyTotals(fromMonth, toMonth)
+        } else {
+            reportDao.observeMonthlyTotalsForAccount(accountId, fromMonth, toMonth)
+        }
+        return rows.map { totals ->
+            totals.groupBy { it.month }.map { (month, byType) ->
+                MonthlyTotals(
+                    year = month / 100,
+                    month = month % 100,
+                    count = byType.sumOf { it.count },
+                    amountByType = byType.associate { it.type to it.total }
+                )
+            }
+        }
     }
 
-    private fun shouldOccurOnDate(startDate: LocalDate, endDate: LocalDate?, recurrenceType: RecurrenceType, checkDate: LocalDate): Boolean {
-        if (checkDate < startDate) return false
-        if (endDate != null && checkDate > endDate) return false
+    override suspend fun getBalanceOn(date: LocalDate): Double = writeMutex.withLock {
+        projectionDao.getAccounts().sumOf { accountBalanceOn(it, date) }
+    }
 
-        return when (recurrenceType) {
-            RecurrenceType.BI_WEEKLY -> {
-                val daysBetween = (checkDate.toEpochDays() - startDate.toEpochDays())
-                daysBetween >= 0 && daysBetween % 14 == 0
+    override suspend fun getBalanceHistory(accountId: Long, startDate: LocalDate, endDate: LocalDate): List<BalancePoint> =
+        writeMutex.withLock {
+            val account = accountDao.getAccountById(accountId) ?: return@withLock emptyList()
+            val firstDay = startDate.toEpochDays()
+            val changes = DoubleArray((endDate.toEpochDays() - firstDay + 1).coerceAtLeast(0))
+            for (change in checkpointDao.getDailyBalanceChanges(accountId, startDate, endDate)) {
+                changes[change.date.toEpochDays() - firstDay] += change.change
             }
-            RecurrenceType.WEEKLY -> {
-                val daysBetween = (checkDate.toEpochDays() - startDate.toEpochDays())
-                daysBetween >= 0 && daysBetween % 7 == 0
+            var balance = accountBalanceOn(account, LocalDate.fromEpochDays(firstDay - 1))
+            List(changes.size) { offset ->
+                balance += changes[offset]
+                BalancePoint(LocalDate.fromEpochDays(firstDay + offset), balance)
             }
-            RecurrenceType.MONTHLY -> {
-                checkDate.dayOfMonth == startDate.dayOfMonth && checkDate >= startDate
+        }
+
+    // Ledger balance at the end of [date]: the month-end checkpoint on or before it plus the
+    // transactions since. Missing checkpoints are derived from currentBalance and stored.
+    // Callers must hold writeMutex so no transaction write lands in between.
+    private suspend fun accountBalanceOn(account: AccountEntity, date: LocalDate): Double {
+        val day = date.toEpochDays()
+        val isMonthEnd = LocalDate.fromEpochDays(day + 1).dayOfMonth == 1
+        val monthEnd = if (isMonthEnd) date else LocalDate.fromEpochDays(day - date.dayOfMonth)
+        val checkpoint = checkpointDao.getCheckpoint(account.id, monthEnd)?.balance
+            ?: (account.currentBalance - checkpointDao.getBalanceChangeBetween(account.id, monthEnd, LATEST_DATE)).also {
+                checkpointDao.insertCheckpoint(BalanceCheckpointEntity(account.id, monthEnd, it))
             }
-            RecurrenceType.CUSTOM -> false // Handle custom recurrence separately if needed
+        return if (isMonthEnd) checkpoint else checkpoint + checkpointDao.getBalanceChangeBetween(account.id, monthEnd, date)
+    }
+
+    // Runs a write in one transaction under the write lock, so ledger rows, the balances they move
+    // and the change log commit together or not at all; then publishes the changes it recorded
+    private suspend fun <T> publishing(block: suspend (MutableList<ProjectionChange>) -> T): T {
+        val changes = mutableListOf<ProjectionChange>()
+        val (outcome, sequence) = writeMutex.withLock {
+            val outcome = runCatching { database.withTransaction { block(changes) } }
+            if (outcome.isSuccess) pendingCacheEdits.forEach { it() } else dropCaches()
+            pendingCacheEdits.clear()
+            outcome to ++writeSequence
+        }
+        // A failed write may have partially committed, so projections must rebuild. Emitted outside the
+        // lock, so a collector reading a snapshot cannot deadlock the writers; concurrent writes may
+        // therefore publish out of order, which the projections detect from the sequence
+        val published = if (outcome.isSuccess) changes else listOf(ProjectionChange.Rebuild)
+        projectionUpdates.emit(ProjectionUpdate(sequence, published))
+        return outcome.getOrThrow()
+    }
+
+    // Mirrors a row the current write changed in the caches once it commits. Callers hold writeMutex.
+    private fun cacheEdit(edit: () -> Unit) {
+        pendingCacheEdits += edit
+    }
+
+    // Has the caches read again for writes they cannot follow; a failed one may have partially committed
+    private fun dropCaches() {
+        accountCache.drop()
+        billCache.drop()
+        incomeCache.drop()
+    }
+
+    // For writes a projection cannot patch (accounts, schedules, bulk data changes)
+    private suspend fun <T> rebuilding(block: suspend () -> T): T = publishing { changes ->
+        changes += ProjectionChange.Rebuild
+        block()
+    }
+
+    private companion object {
+        val LATEST_DATE = LocalDate(9999, 12, 31)
+        const val IMPORT_BATCH_SIZE = 500
+        const val EXPORT_PAGE_SIZE = 500
+        const val EXPORT_BUFFER_SIZE = 64 * 1024
+        const val FUTURE_OCCURRENCE_DAYS = 365
+
+        // Months the occurrences table covers, starting with the current one
+        const val OCCURRENCE_WINDOW_MONTHS = 18
+
+        // Shared flows outlive a screen rotation or a quick switch between tabs
+        const val SHARING_TIMEOUT_MILLIS = 5_000L
+
+        // Pages far from the viewport are dropped, so the list holds at most maxSize rows
+        val TRANSACTION_PAGING_CONFIG = PagingConfig(pageSize = 50, enablePlaceholders = false, maxSize = 300)
+        val SEARCH_PAGING_CONFIG = PagingConfig(pageSize = 30, enablePlaceholders = false)
+
+        // Separators of the unicode61 tokenizer the FTS tables use
+        val NON_WORD = Regex("[^\\p{L}\\p{N}]+")
+
+        // Daily increments are folded into a fresh full backup about once a month
+        const val MAX_INCREMENTS_PER_FULL_BACKUP = 30
+
+        // Compact by default; unknown keys are tolerated so older apps can read newer backups
+        val backupJson = Json {
+            ignoreUnknownKeys = true
+            isLenient = true
         }
     }
 
+    private val DataTable.tableName: String
+        get() = when (this) {
+            DataTable.ACCOUNTS -> "accounts"
+            DataTable.INCOME -> "income"
+            DataTable.INCOME_OVERRIDES -> "income_overrides"
+            DataTable.BILLS -> "bills"
+            DataTable.BILL_OVERRIDES -> "bill_overrides"
+            DataTable.TRANSACTIONS -> "transactions"
+            DataTable.BILL_PAYMENTS -> "bill_payments"
+        }
+
     // Extension functions for entity conversion
     private fun AccountEntity.toDomain() = Account(id, name, type, startingBalance, currentBalance)
     private fun Account.toEntity() = AccountEntity(id, name, type, startingBalance, currentBalance)
@@ -656,6 +1162,70 @@ class CashFlowRepositoryImpl(
     private fun BillEntity.toDomain() = Bill(id, name, amount, recurrenceType, startDate, endDate, isActive, reminderDaysBefore)
     private fun Bill.toEntity() = BillEntity(id, name, amount, recurrenceType, startDate, endDate, null, isActive, reminderDaysBefore)
 
+    private fun BillEntity.occurrencesBetween(from: LocalDate, to: LocalDate) = scheduledOccurrences(
+        OccurrenceSource.BILL, id, amount, recurrenceType, startDate, endDate, from, to
+    )
+
+    private fun IncomeEntity.occurrencesBetween(from: LocalDate, to: LocalDate) = scheduledOccurrences(
+        OccurrenceSource.INCOME, id, amount, recurrenceType, startDate, null, from, to
+    )
+
+    // Pending rows at the schedule's own amount; the reconcile queries fill in the rest
+    private fun scheduledOccurrences(
+        source: OccurrenceSource,
+        sourceId: Long,
+        amount: Double,
+        recurrenceType: RecurrenceType,
+        startDate: LocalDate,
+        endDate: LocalDate?,
+        from: LocalDate,
+        to: LocalDate
+    ): List<OccurrenceEntity> {
+        val rows = mutableListOf<OccurrenceEntity>()
+        RecurrenceEngine.forEachOccurrence(
+            startDate.toEpochDays(),
+            endDate?.toEpochDays() ?: RecurrenceEngine.OPEN_END,
+            recurrenceType,
+            from.toEpochDays(),
+            to.toEpochDays()
+        ) { day ->
+            rows.add(OccurrenceEntity(source, sourceId, LocalDate.fromEpochDays(day), amount))
+        }
+        return rows
+    }
+
+    private fun OccurrenceEntity.toBillOccurrence(bill: Bill): BillOccurrence {
+        val isPaid = status == OccurrenceStatus.SETTLED
+        return BillOccurrence(
+            bill = bill,
+            dueDate = dueDate,
+            amount = amount,
+            isPaid = isPaid,
+            paymentDate = if (isPaid) dueDate else null,
+            paidFromAccountId = accountId
+        )
+    }
+
+    private fun OccurrenceEntity.toIncomeOccurrence(income: Income): IncomeOccurrence {
+        val isReceived = status == OccurrenceStatus.SETTLED
+        return IncomeOccurrence(
+            income = income,
+            date = dueDate,
+            amount = amount,
+            isReceived = isReceived,
+            receivedDate = if (isReceived) dueDate else null,
+            receivedIntoAccountId = accountId
+        )
+    }
+
+    private fun SearchHitRow.toDomain() = SearchHit(
+        type = SearchHitType.values()[kind],
+        id = id,
+        title = title,
+        amount = amount,
+        date = date
+    )
+
     private fun TransactionEntity.toDomain() = Transaction(
         id, accountId, toAccountId, type, amount, date, timestamp, description, relatedBillId, relatedIncomeId
     )
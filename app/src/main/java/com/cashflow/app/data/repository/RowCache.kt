@@ -0,0 +1,60 @@
+package com.cashflow.app.data.repository
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.transform
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * The rows of one table held in memory by id.
+ *
+ * Read once under [lock], the repository's write lock, then edited by the repository's own writes
+ * after they commit, so the table is not queried again until [drop] discards the rows for a change
+ * that cannot be followed (a failed write, a restore). Edits made while nothing is loaded are
+ * skipped: the next load reads them from the table.
+ */
+class RowCache<T>(
+    private val lock: Mutex,
+    private val id: (T) -> Long,
+    private val load: suspend () -> List<T>
+) {
+    private val rows = MutableStateFlow<Map<Long, T>?>(null)
+
+    // Must not be called while holding the lock
+    suspend fun get(): Map<Long, T> =
+        rows.value ?: lock.withLock { rows.value ?: load().associateBy(id).also { rows.value = it } }
+
+    // Every state of the rows, loading them again whenever they were dropped. A failed load is
+    // emitted rather than thrown, so a collector in a scope without a handler survives it; the next
+    // collection tries the load again.
+    fun observe(): Flow<Result<Map<Long, T>>> = rows.transform { current ->
+        if (current != null) {
+            emit(Result.success(current))
+        } else {
+            try {
+                get()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                emit(Result.failure(e))
+            }
+        }
+    }
+
+    // The edits below are made under the lock, after the write they mirror has committed
+    fun put(row: T) = rows.update { it?.plus(id(row) to row) }
+
+    fun remove(id: Long) = rows.update { it?.minus(id) }
+
+    fun change(id: Long, change: (T) -> T) = rows.update { current ->
+        val row = current?.get(id) ?: return@update current
+        current + (id to change(row))
+    }
+
+    fun drop() {
+        rows.value = null
+    }
+}
@@ -3,7 +3,9 @@ package com.cashflow.app.di
 import android.content.Context
 import androidx.room.Room
 import com.cashflow.app.data.dao.*
+import com.cashflow.app.data.database.ALL_MIGRATIONS
 import com.cashflow.app.data.database.CashFlowDatabase
+import com.cashflow.app.data.database.DATABASE_CALLBACK
 import com.cashflow.app.data.repository.CashFlowRepositoryImpl
 import com.cashflow.app.domain.repository.CashFlowRepository
 
@@ -18,7 +20,8 @@ object AppModule {
                 CashFlowDatabase::class.java,
                 "cashflow_database"
             )
-                .fallbackToDestructiveMigration() // For development - remove in production and add proper migrations
+                .addMigrations(*ALL_MIGRATIONS)
+                .addCallback(DATABASE_CALLBACK)
                 .build()
         }
         return database!!
@@ -33,6 +36,12 @@ object AppModule {
                 db.billDao(),
                 db.billPaymentDao(),
                 db.transactionDao(),
+                db.projectionDao(),
+                db.balanceCheckpointDao(),
+                db.backupDao(),
+                db.searchDao(),
+                db.reportDao(),
+                db.occurrenceDao(),
                 db
             )
         }
@@ -0,0 +1,7 @@
+package com.cashflow.app.domain.model
+
+enum class BackupFormat(val mimeType: String, val fileExtension: String) {
+    JSON("application/json", "json"),
+    JSON_GZIP("application/gzip", "json.gz"),
+    BINARY("application/octet-stream", "cfbk") // Columnar ProtoBuf, gzipped; smallest and fastest
+}
@@ -0,0 +1,8 @@
+package com.cashflow.app.domain.model
+
+import kotlinx.datetime.LocalDate
+
+data class BalancePoint(
+    val date: LocalDate,
+    val balance: Double
+)
@@ -0,0 +1,12 @@
+package com.cashflow.app.domain.model
+
+// Stored data whose changes can be observed without reading it, see CashFlowRepository.observeChanges
+enum class DataTable {
+    ACCOUNTS,
+    INCOME,
+    INCOME_OVERRIDES,
+    BILLS,
+    BILL_OVERRIDES,
+    TRANSACTIONS,
+    BILL_PAYMENTS
+}
@@ -0,0 +1,7 @@
+package com.cashflow.app.domain.model
+
+// Rows written so far by a backup import; totalRows is 0 while the file is still being read
+data class ImportProgress(
+    val rowsImported: Int,
+    val totalRows: Int
+)
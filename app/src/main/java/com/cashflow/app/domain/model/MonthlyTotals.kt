@@ -0,0 +1,13 @@
+package com.cashflow.app.domain.model
+
+import com.cashflow.app.data.model.TransactionType
+
+// Transactions recorded in one calendar month, by type; months without any are left out
+data class MonthlyTotals(
+    val year: Int,
+    val month: Int,
+    val count: Int,
+    val amountByType: Map<TransactionType, Double>
+) {
+    fun amount(type: TransactionType): Double = amountByType[type] ?: 0.0
+}
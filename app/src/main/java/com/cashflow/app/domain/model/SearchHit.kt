@@ -0,0 +1,18 @@
+package com.cashflow.app.domain.model
+
+import kotlinx.datetime.LocalDate
+
+enum class SearchHitType {
+    TRANSACTION,
+    BILL,
+    INCOME
+}
+
+// A transaction description, bill name or income name matching a search; date is a bill's or income's start date
+data class SearchHit(
+    val type: SearchHitType,
+    val id: Long,
+    val title: String,
+    val amount: Double,
+    val date: LocalDate
+)
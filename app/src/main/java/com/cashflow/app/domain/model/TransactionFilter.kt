@@ -0,0 +1,16 @@
+package com.cashflow.app.domain.model
+
+import com.cashflow.app.data.model.TransactionType
+import kotlinx.datetime.LocalDate
+
+// Conditions left null or empty match everything; ranges are inclusive
+data class TransactionFilter(
+    val accountId: Long? = null, // Source account, as in the account's own history
+    val types: Set<TransactionType> = emptySet(),
+    val startDate: LocalDate? = null,
+    val endDate: LocalDate? = null,
+    val minAmount: Double? = null,
+    val maxAmount: Double? = null,
+    val relatedBillId: Long? = null,
+    val relatedIncomeId: Long? = null
+)
@@ -0,0 +1,10 @@
+package com.cashflow.app.domain.model
+
+import com.cashflow.app.data.model.TransactionType
+
+// Aggregates over the transactions matching a TransactionFilter, computed in SQLite
+data class TransactionTotals(
+    val count: Int = 0,
+    val totalAmount: Double = 0.0,
+    val amountByType: Map<TransactionType, Double> = emptyMap()
+)
@@ -0,0 +1,374 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.data.model.TransactionType
+import com.cashflow.app.domain.model.*
+import kotlinx.datetime.LocalDate
+import java.util.BitSet
+
+/**
+ * Projected cash flow stored column-wise: a per-day delta array plus its running-balance prefix,
+ * negative/warning bitsets, CSR event columns keyed by bill/income id, and CSR transaction buckets.
+ *
+ * [apply] patches the projection for single writes: only the touched day's delta changes and the
+ * balance suffix after it is shifted. Not thread-safe; confine each instance to one coroutine.
+ */
+class CashFlowProjection private constructor(
+    val firstDay: Int,
+    val dayCount: Int,
+    private val deltas: DoubleArray,
+    private val balances: DoubleArray,
+    private val incomeById: Map<Long, Income>,
+    private val billById: Map<Long, Bill>,
+    private val index: ProjectionIndex,
+    private val ownsIndex: Boolean,
+    private val eventOffsets: IntArray,
+    private val eventKinds: ByteArray,
+    private val eventSourceIds: LongArray,
+    private val eventAmounts: DoubleArray,
+    private val eventActive: BitSet,
+    private val transactionOffsets: IntArray,
+    private val transactions: ArrayList<Transaction>
+) {
+    private val negative = BitSet(dayCount)
+    private val warning = BitSet(dayCount)
+
+    // Sequence of the last repository write reflected in this projection
+    var sequence: Long = 0
+        private set
+
+    val startDate: LocalDate get() = LocalDate.fromEpochDays(firstDay)
+
+    init {
+        for (offset in 0 until dayCount) updateFlags(offset)
+    }
+
+    fun balanceAt(offset: Int): Double = balances[offset]
+
+    // Copies the columns so later patches never show through lists already handed to the UI
+    fun days(): ProjectedDays = ProjectedDays(freeze(), 0, dayCount)
+
+    private fun freeze() = ProjectionColumns(
+        firstDay = firstDay,
+        dayCount = dayCount,
+        balances = balances.copyOf(),
+        negative = negative.clone() as BitSet,
+        warning = warning.clone() as BitSet,
+        eventOffsets = eventOffsets,
+        eventKinds = eventKinds,
+        eventSourceIds = eventSourceIds,
+        eventAmounts = eventAmounts.copyOf(),
+        eventActive = eventActive.clone() as BitSet,
+        transactionOffsets = transactionOffsets.copyOf(),
+        transactions = transactions.toTypedArray(),
+        incomeById = incomeById,
+        billById = billById
+    )
+
+    // Returns false when the update cannot be patched and the projection must be rebuilt
+    fun apply(update: ProjectionUpdate): Boolean {
+        if (update.sequence <= sequence) return true // Already included when the snapshot was read
+        if (update.sequence != sequence + 1) return false // An earlier write has not arrived yet
+        if (!ownsIndex) return false // Patching would write into an index other projections share
+        for (change in update.changes) {
+            val patched = when (change) {
+                is ProjectionChange.TransactionAdded -> addTransaction(change.transaction)
+                is ProjectionChange.TransactionRemoved -> removeTransaction(change.transaction)
+                is ProjectionChange.BillPaid -> markBillPaid(change.billId, change.dueDate.toEpochDays(), change.accountId)
+                is ProjectionChange.BillOverrideChanged -> changeBillAmount(change.billId, change.date.toEpochDays(), change.amount)
+                is ProjectionChange.IncomeOverrideChanged -> changeIncomeAmount(change.incomeId, change.date.toEpochDays(), change.amount)
+                ProjectionChange.Rebuild -> false
+            }
+            if (!patched) return false
+        }
+        sequence = update.sequence
+        return true
+    }
+
+    private fun addTransaction(transaction: Transaction): Boolean {
+        val day = transaction.date.toEpochDays()
+        val offset = day - firstDay
+        val effect = CashFlowProjector.balanceEffect(transaction)
+        if (offset !in 0 until dayCount) {
+            // Outside the range the transaction only moves the opening balance
+            shiftFrom(0, effect)
+            return true
+        }
+        // Append to the day's bucket and move the following buckets up by one
+        transactions.add(transactionOffsets[offset + 1], transaction)
+        for (d in offset + 1..dayCount) transactionOffsets[d]++
+        addDelta(offset, effect)
+
+        val incomeId = transaction.relatedIncomeId
+        if (transaction.type == TransactionType.INCOME && incomeId != null) {
+            val key = occurrenceKey(incomeId, day)
+            val wasReceived = index.receivedIncome.containsKey(key)
+            // An insert always has the highest id, so it is the newest transaction for the occurrence
+            index.receivedIncome.put(key, transaction.accountId)
+            if (!wasReceived) {
+                // Received income replaces its projected occurrence
+                val event = findEvent(offset, EVENT_INCOME, incomeId)
+                if (event >= 0 && eventActive[event]) {
+                    eventActive.clear(event)
+                    addDelta(offset, -eventAmounts[event])
+                }
+            }
+        }
+        return true
+    }
+
+    private fun removeTransaction(transaction: Transaction): Boolean {
+        val day = transaction.date.toEpochDays()
+        val offset = day - firstDay
+        val effect = CashFlowProjector.balanceEffect(transaction)
+        if (offset !in 0 until dayCount) {
+            shiftFrom(0, -effect)
+            return true
+        }
+        var removed = 0
+        var i = transactionOffsets[offset]
+        while (i < transactionOffsets[offset + 1] - removed) {
+            if (transactions[i].id == transaction.id) {
+                transactions.removeAt(i)
+                removed++
+            } else {
+                i++
+            }
+        }
+        if (removed == 0) return false
+        for (d in offset + 1..dayCount) transactionOffsets[d] -= removed
+        addDelta(offset, -effect)
+
+        val incomeId = transaction.relatedIncomeId
+        if (transaction.type == TransactionType.INCOME && incomeId != null) {
+            var stillReceived: Transaction? = null
+            for (j in transactionOffsets[offset] until transactionOffsets[offset + 1]) {
+                val other = transactions[j]
+                if (other.type == TransactionType.INCOME && other.relatedIncomeId == incomeId &&
+                    (stillReceived == null || other.id > stillReceived.id)
+                ) {
+                    stillReceived = other
+                }
+            }
+            val key = occurrenceKey(incomeId, day)
+            if (stillReceived != null) {
+                index.receivedIncome.put(key, stillReceived.accountId)
+            } else {
+                index.receivedIncome.remove(key)
+                // The occurrence is projected again now that nothing records it as received
+                val event = findEvent(offset, EVENT_INCOME, incomeId)
+                if (event >= 0 && !eventActive[event]) {
+                    eventActive.set(event)
+                    addDelta(offset, eventAmounts[event])
+                }
+            }
+        }
+        return true
+    }
+
+    private fun markBillPaid(billId: Long, day: Int, accountId: Long): Boolean {
+        val key = occurrenceKey(billId, day)
+        if (index.paidBills.containsKey(key)) return true
+        index.paidBills.put(key, accountId)
+        val offset = day - firstDay
+        if (offset !in 0 until dayCount) return true
+        val event = findEvent(offset, EVENT_BILL, billId)
+        if (event < 0 || !eventActive[event]) return true
+        eventActive.clear(event)
+        addDelta(offset, eventAmounts[event])
+        return true
+    }
+
+    private fun changeBillAmount(billId: Long, day: Int, amount: Double?): Boolean {
+        val key = occurrenceKey(billId, day)
+        if (amount != null) index.billOverrides.put(key, amount) else index.billOverrides.remove(key)
+        val offset = day - firstDay
+        if (offset !in 0 until dayCount) return true
+        val event = findEvent(offset, EVENT_BILL, billId)
+        if (event < 0) return true // Not scheduled on this day
+        val bill = billById[billId] ?: return false
+        val newAmount = amount ?: bill.amount
+        // Paid occurrences keep the amount for display only; it no longer moves the balance
+        if (eventActive[event]) addDelta(offset, eventAmounts[event] - newAmount)
+        eventAmounts[event] = newAmount
+        return true
+    }
+
+    private fun changeIncomeAmount(incomeId: Long, day: Int, amount: Double?): Boolean {
+        val key = occurrenceKey(incomeId, day)
+        if (amount != null) index.incomeOverrides.put(key, amount) else index.incomeOverrides.remove(key)
+        val offset = day - firstDay
+        if (offset !in 0 until dayCount) return true
+        val event = findEvent(offset, EVENT_INCOME, incomeId)
+        if (event < 0) return true // Not scheduled on this day
+        val income = incomeById[incomeId] ?: return false
+        val newAmount = amount ?: income.amount
+        if (eventActive[event]) addDelta(offset, newAmount - eventAmounts[event])
+        eventAmounts[event] = newAmount
+        return true
+    }
+
+    // Position of a source's occurrence within a day's events, or -1 if it is not scheduled that day
+    private fun findEvent(offset: Int, kind: Byte, sourceId: Long): Int {
+        for (i in eventOffsets[offset] until eventOffsets[offset + 1]) {
+            if (eventKinds[i] == kind && eventSourceIds[i] == sourceId) return i
+        }
+        return -1
+    }
+
+    private fun addDelta(offset: Int, amount: Double) {
+        if (amount == 0.0) return
+        deltas[offset] += amount
+        shiftFrom(offset, amount)
+    }
+
+    private fun shiftFrom(offset: Int, amount: Double) {
+        for (i in offset until dayCount) {
+            balances[i] += amount
+            updateFlags(i)
+        }
+    }
+
+    private fun updateFlags(offset: Int) {
+        val balance = balances[offset]
+        negative[offset] = balance < 0
+        warning[offset] = balance >= 0 && balance < 100
+    }
+
+    companion object {
+        // A shared [sharedIndex] must come from a snapshot with the same range, transactions,
+        // payments and overrides; schedules (bills, income) may differ
+        fun build(
+            snapshot: ProjectionSnapshot,
+            accounts: List<Account> = snapshot.accounts,
+            sharedIndex: ProjectionIndex? = null
+        ): CashFlowProjection {
+            val index = sharedIndex ?: ProjectionIndex(snapshot)
+            val firstDay = index.firstDay
+            val dayCount = index.dayCount
+            val lastDay = firstDay + dayCount - 1
+
+            // Start from current account balances, but EXCLUDE transactions in our date range
+            // since they're already included in currentBalance but we'll add them back per day
+            var openingBalance = accounts.sumOf { it.currentBalance }
+            for (transaction in snapshot.transactions) {
+                if (transaction.date >= snapshot.startDate) {
+                    openingBalance -= CashFlowProjector.balanceEffect(transaction)
+                }
+            }
+
+            val deltas = DoubleArray(dayCount)
+
+            // First pass sizes each day's event bucket, second pass fills it
+            val eventOffsets = IntArray(dayCount + 1)
+            for (income in snapshot.income) {
+                RecurrenceEngine.forEachOccurrence(
+                    income.startDate.toEpochDays(),
+                    RecurrenceEngine.OPEN_END,
+                    income.recurrenceType,
+                    firstDay,
+                    lastDay
+                ) { day -> eventOffsets[day - firstDay + 1]++ }
+            }
+            for (bill in snapshot.bills) {
+                RecurrenceEngine.forEachOccurrence(
+                    bill.startDate.toEpochDays(),
+                    bill.endDate?.toEpochDays() ?: RecurrenceEngine.OPEN_END,
+                    bill.recurrenceType,
+                    firstDay,
+                    lastDay
+                ) { day -> eventOffsets[day - firstDay + 1]++ }
+            }
+            for (d in 0 until dayCount) eventOffsets[d + 1] += eventOffsets[d]
+
+            val eventCount = eventOffsets[dayCount]
+            val eventKinds = ByteArray(eventCount)
+            val eventSourceIds = LongArray(eventCount)
+            val eventAmounts = DoubleArray(eventCount)
+            val eventActive = BitSet(eventCount)
+            val cursor = eventOffsets.copyOf(dayCount)
+
+            // Process income (received occurrences are kept but inactive)
+            for (income in snapshot.income) {
+                RecurrenceEngine.forEachOccurrence(
+                    income.startDate.toEpochDays(),
+                    RecurrenceEngine.OPEN_END,
+                    income.recurrenceType,
+                    firstDay,
+                    lastDay
+                ) { day ->
+                    val key = occurrenceKey(income.id, day)
+                    val offset = day - firstDay
+                    val event = cursor[offset]++
+                    val amount = index.incomeOverrides.getOrDefault(key, income.amount)
+                    eventKinds[event] = EVENT_INCOME
+                    eventSourceIds[event] = income.id
+                    eventAmounts[event] = amount
+                    // If received, it will show up in transactions instead
+                    if (!index.receivedIncome.containsKey(key)) {
+                        eventActive.set(event)
+                        deltas[offset] += amount
+                    }
+                }
+            }
+
+            // Process bills (paid occurrences are kept but inactive)
+            for (bill in snapshot.bills) {
+                RecurrenceEngine.forEachOccurrence(
+                    bill.startDate.toEpochDays(),
+                    bill.endDate?.toEpochDays() ?: RecurrenceEngine.OPEN_END,
+                    bill.recurrenceType,
+                    firstDay,
+                    lastDay
+                ) { day ->
+                    val key = occurrenceKey(bill.id, day)
+                    val offset = day - firstDay
+                    val event = cursor[offset]++
+                    val amount = index.billOverrides.getOrDefault(key, bill.amount)
+                    eventKinds[event] = EVENT_BILL
+                    eventSourceIds[event] = bill.id
+                    eventAmounts[event] = amount
+                    if (!index.paidBills.containsKey(key)) {
+                        eventActive.set(event)
+                        deltas[offset] -= amount
+                    }
+                }
+            }
+
+            // Process transactions
+            val transactionOffsets = IntArray(dayCount + 1)
+            val transactions = ArrayList<Transaction>(snapshot.transactions.size)
+            for (offset in 0 until dayCount) {
+                index.forEachTransaction(offset) { transaction ->
+                    transactions.add(transaction)
+                    deltas[offset] += CashFlowProjector.balanceEffect(transaction)
+                }
+                transactionOffsets[offset + 1] = transactions.size
+            }
+
+            val balances = DoubleArray(dayCount)
+            var running = openingBalance
+            for (offset in 0 until dayCount) {
+                running += deltas[offset]
+                balances[offset] = running
+            }
+
+            return CashFlowProjection(
+                firstDay = firstDay,
+                dayCount = dayCount,
+                deltas = deltas,
+                balances = balances,
+                incomeById = snapshot.income.associateBy { it.id },
+                billById = snapshot.bills.associateBy { it.id },
+                index = index,
+                ownsIndex = sharedIndex == null,
+                eventOffsets = eventOffsets,
+                eventKinds = eventKinds,
+                eventSourceIds = eventSourceIds,
+                eventAmounts = eventAmounts,
+                eventActive = eventActive,
+                transactionOffsets = transactionOffsets,
+                transactions = transactions
+            ).also { it.sequence = snapshot.sequence }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.data.model.TransactionType
+import com.cashflow.app.domain.model.*
+
+// Projects daily balances purely in memory from a ProjectionSnapshot
+object CashFlowProjector {
+
+    fun project(snapshot: ProjectionSnapshot, accounts: List<Account>): List<CashFlowDay> =
+        CashFlowProjection.build(snapshot, accounts).days()
+
+    // Change a transaction makes to the total cash balance
+    fun balanceEffect(transaction: Transaction): Double = when (transaction.type) {
+        TransactionType.INCOME -> transaction.amount
+        TransactionType.BILL_PAYMENT,
+        TransactionType.CREDIT_CARD_PAYMENT -> -transaction.amount
+        // Manual adjustments can be positive or negative, so the amount is the change
+        TransactionType.MANUAL_ADJUSTMENT -> transaction.amount
+        // Transfers just move money between accounts
+        TransactionType.TRANSFER -> 0.0
+    }
+}
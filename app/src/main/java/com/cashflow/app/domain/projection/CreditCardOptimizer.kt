@@ -0,0 +1,141 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.domain.model.Bill
+import kotlin.math.ceil
+import kotlin.math.roundToLong
+
+/**
+ * Finds the smallest total reduction to credit-card bill amounts that keeps every projected day
+ * non-negative.
+ *
+ * Lowering a bill's amount by r raises the balance on day t by r times the number of its unpaid,
+ * non-overridden occurrences up to t, so the projector's baseline is enough to evaluate any set of
+ * reductions. That makes the search a small linear program: minimize the sum of r over the cards
+ * subject to one "occurrences so far times r covers the deficit" row per distinct deficit day and
+ * 0 <= r <= amount. It is solved exactly through its dual with the simplex method; the result is
+ * rounded up to whole cents, so it is minimal up to a cent per card.
+ */
+object CreditCardOptimizer {
+
+    // Reduction per bill id, or null when even skipping the card payments leaves a negative day
+    fun minimumReductions(projector: ScenarioProjector, cards: List<Bill>): Map<Long, Double>? {
+        val projection = projector.baseline
+        val index = projector.index
+        val firstDay = projection.firstDay
+        val dayCount = projection.dayCount
+
+        // counts[k][t] = occurrences of card k on or before day t whose amount follows bill.amount
+        val counts = Array(cards.size) { k ->
+            val bill = cards[k]
+            val perDay = IntArray(dayCount)
+            RecurrenceEngine.forEachOccurrence(
+                bill.startDate.toEpochDays(),
+                bill.endDate?.toEpochDays() ?: RecurrenceEngine.OPEN_END,
+                bill.recurrenceType,
+                firstDay,
+                firstDay + dayCount - 1
+            ) { day ->
+                val key = occurrenceKey(bill.id, day)
+                if (!index.paidBills.containsKey(key) && !index.billOverrides.containsKey(key)) perDay[day - firstDay]++
+            }
+            for (t in 1 until dayCount) perDay[t] += perDay[t - 1]
+            perDay
+        }
+
+        val balances = LongArray(dayCount) { toCents(projection.balanceAt(it)) }
+        val capacity = LongArray(cards.size) { toCents(cards[it].amount).coerceAtLeast(0) }
+
+        // Counts only change on occurrence days, so many deficit days share a row; the deepest one binds
+        val deficits = HashMap<List<Int>, Long>()
+        for (t in 0 until dayCount) {
+            if (balances[t] >= 0) continue
+            val row = cards.indices.map { counts[it][t] }
+            deficits[row] = maxOf(deficits[row] ?: 0L, -balances[t])
+        }
+        val rows = deficits.keys.toList()
+        val optimum = minimizeTotal(rows, LongArray(rows.size) { deficits.getValue(rows[it]) }, capacity) ?: return null
+
+        // Rounding up keeps every row covered; anything floating-point error still left uncovered
+        // is closed with the card that recovers the most per cent
+        val reduction = LongArray(cards.size) { ceil(optimum[it] - ROUNDING_SLACK).toLong().coerceIn(0, capacity[it]) }
+        for (t in 0 until dayCount) {
+            var balance = balances[t]
+            for (k in cards.indices) balance += reduction[k] * counts[k][t]
+            while (balance < 0) {
+                var best = -1
+                for (k in cards.indices) {
+                    if (counts[k][t] == 0 || reduction[k] == capacity[k]) continue
+                    if (best < 0 || counts[k][t] > counts[best][t]) best = k
+                }
+                if (best < 0) return null
+                val occurrences = counts[best][t]
+                val step = minOf((-balance + occurrences - 1) / occurrences, capacity[best] - reduction[best])
+                reduction[best] += step
+                balance += step * occurrences
+            }
+        }
+        return cards.indices.associate { cards[it].id to reduction[it] / 100.0 }
+    }
+
+    // Minimizes the sum of r subject to rows[i] . r >= deficits[i] and 0 <= r <= capacity, or null
+    // when no r satisfies the rows. Solved as its dual, maximize deficits . y - capacity . z subject
+    // to rows^T y - z <= 1 and y, z >= 0, whose all-slack basis is feasible from the start; at the
+    // optimum the objective row under each slack column is the primal r. Bland's rule keeps the
+    // degenerate pivots from cycling.
+    private fun minimizeTotal(rows: List<List<Int>>, deficits: LongArray, capacity: LongArray): DoubleArray? {
+        val cardCount = capacity.size
+        val dualCount = rows.size + cardCount
+        val width = dualCount + cardCount + 1
+        // One constraint per card: dual variables, then the slack columns, then the right-hand side
+        val tableau = Array(cardCount) { k ->
+            DoubleArray(width).also { line ->
+                for (i in rows.indices) line[i] = rows[i][k].toDouble()
+                line[rows.size + k] = -1.0
+                line[dualCount + k] = 1.0
+                line[width - 1] = 1.0
+            }
+        }
+        val objective = DoubleArray(width).also { line ->
+            for (i in rows.indices) line[i] = -deficits[i].toDouble()
+            for (k in 0 until cardCount) line[rows.size + k] = capacity[k].toDouble()
+        }
+        val basis = IntArray(cardCount) { dualCount + it }
+
+        while (true) {
+            val entering = (0 until width - 1).firstOrNull { objective[it] < -EPSILON } ?: break
+            var leaving = -1
+            for (k in 0 until cardCount) {
+                val coefficient = tableau[k][entering]
+                if (coefficient <= EPSILON) continue
+                if (leaving < 0) {
+                    leaving = k
+                    continue
+                }
+                val ratio = tableau[k][width - 1] / coefficient
+                val best = tableau[leaving][width - 1] / tableau[leaving][entering]
+                if (ratio < best - EPSILON || (ratio <= best + EPSILON && basis[k] < basis[leaving])) leaving = k
+            }
+            // The dual grows without bound: some deficit day cannot be covered at all
+            if (leaving < 0) return null
+
+            val pivotRow = tableau[leaving]
+            val pivot = pivotRow[entering]
+            for (j in 0 until width) pivotRow[j] /= pivot
+            for (line in tableau.asList() + listOf(objective)) {
+                if (line === pivotRow) continue
+                val factor = line[entering]
+                if (factor == 0.0) continue
+                for (j in 0 until width) line[j] -= factor * pivotRow[j]
+            }
+            basis[leaving] = entering
+        }
+        return DoubleArray(cardCount) { objective[dualCount + it] }
+    }
+
+    private fun toCents(amount: Double): Long = (amount * 100).roundToLong()
+
+    private const val EPSILON = 1e-9
+
+    // Floating-point noise allowed below a whole cent before rounding up to the next one
+    private const val ROUNDING_SLACK = 1e-6
+}
@@ -0,0 +1,97 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.data.model.TransactionType
+import com.cashflow.app.domain.model.BillOccurrence
+import com.cashflow.app.domain.model.IncomeOccurrence
+import kotlinx.datetime.LocalDate
+
+/**
+ * Every occurrence of the active bills and income over [firstDay, lastDay], keyed by bill or income id.
+ *
+ * Read once from the materialized occurrences and then patched per repository write like
+ * CashFlowProjection: a payment, override or received income replaces only the occurrence it
+ * touches and shares every other list.
+ * Instances are immutable, so they can be published to any number of collectors.
+ */
+class FutureOccurrences private constructor(
+    val firstDay: Int,
+    val lastDay: Int,
+    val bills: Map<Long, List<BillOccurrence>>,
+    val income: Map<Long, List<IncomeOccurrence>>,
+    private val sequence: Long
+) {
+    // The patched occurrences, this instance when the update was already included, or null to rebuild
+    fun apply(update: ProjectionUpdate): FutureOccurrences? {
+        if (update.sequence <= sequence) return this
+        if (update.sequence != sequence + 1) return null // Arrived ahead of an earlier write
+        var bills = bills
+        var income = income
+        for (change in update.changes) {
+            when (change) {
+                is ProjectionChange.BillPaid -> bills = bills.patch(change.billId, { it.dueDate == change.dueDate }) {
+                    it.copy(isPaid = true, paymentDate = change.dueDate, paidFromAccountId = change.accountId)
+                }
+                is ProjectionChange.BillOverrideChanged -> bills = bills.patch(change.billId, { it.dueDate == change.date }) {
+                    it.copy(amount = change.amount ?: it.bill.amount)
+                }
+                is ProjectionChange.IncomeOverrideChanged -> income = income.patch(change.incomeId, { it.date == change.date }) {
+                    it.copy(amount = change.amount ?: it.income.amount)
+                }
+                is ProjectionChange.TransactionAdded -> {
+                    val transaction = change.transaction
+                    val incomeId = transaction.relatedIncomeId
+                    if (transaction.type == TransactionType.INCOME && incomeId != null) {
+                        // The newest transaction on the occurrence's day decides the account, as the
+                        // occurrence trigger and reconcile read it; an insert always has the highest id
+                        income = income.patch(incomeId, { it.date == transaction.date }) {
+                            it.copy(isReceived = true, receivedDate = transaction.date, receivedIntoAccountId = transaction.accountId)
+                        }
+                    }
+                }
+                is ProjectionChange.TransactionRemoved -> {
+                    val transaction = change.transaction
+                    val day = transaction.date.toEpochDays()
+                    // Another transaction may still mark the occurrence received; only a reread can tell
+                    if (transaction.type == TransactionType.INCOME && transaction.relatedIncomeId != null &&
+                        day in firstDay..lastDay
+                    ) {
+                        return null
+                    }
+                }
+                ProjectionChange.Rebuild -> return null
+            }
+        }
+        return FutureOccurrences(firstDay, lastDay, bills, income, update.sequence)
+    }
+
+    companion object {
+        // Occurrences as read for [startDate, endDate] after the write numbered [sequence], in date order
+        fun build(
+            startDate: LocalDate,
+            endDate: LocalDate,
+            bills: List<BillOccurrence>,
+            income: List<IncomeOccurrence>,
+            sequence: Long
+        ): FutureOccurrences = FutureOccurrences(
+            firstDay = startDate.toEpochDays(),
+            lastDay = endDate.toEpochDays(),
+            bills = bills.groupBy { it.bill.id },
+            income = income.groupBy { it.income.id },
+            sequence = sequence
+        )
+
+        // Copies the map and the one list holding the first match; everything else is shared
+        private inline fun <T> Map<Long, List<T>>.patch(
+            id: Long,
+            matches: (T) -> Boolean,
+            change: (T) -> T
+        ): Map<Long, List<T>> {
+            val occurrences = this[id] ?: return this
+            val index = occurrences.indexOfFirst(matches)
+            if (index < 0) return this
+            val patched = occurrences.toMutableList()
+            patched[index] = change(patched[index])
+            return toMutableMap().apply { put(id, patched) }
+        }
+    }
+}
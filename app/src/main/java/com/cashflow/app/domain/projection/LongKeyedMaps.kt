@@ -0,0 +1,168 @@
+package com.cashflow.app.domain.projection
+
+// Open-addressing hash maps keyed by primitive longs, used by the projection hot loops
+// to avoid boxing keys and allocating entries. Not thread-safe.
+
+// Packs a bill/income id and an epoch day into one key (ids must fit in 32 bits)
+fun occurrenceKey(sourceId: Long, epochDay: Int): Long =
+    (sourceId shl 32) or (epochDay.toLong() and 0xFFFFFFFFL)
+
+private const val EMPTY_KEY = Long.MIN_VALUE
+
+private fun tableSizeFor(expectedSize: Int): Int {
+    var capacity = 16
+    while (capacity * 3 / 4 < expectedSize) capacity = capacity shl 1
+    return capacity
+}
+
+private fun mix(key: Long): Int {
+    val h = key * -7046029254386353131L
+    return (h xor (h ushr 32)).toInt()
+}
+
+class LongDoubleMap(expectedSize: Int = 16) {
+    private var keys = LongArray(tableSizeFor(expectedSize)).also { it.fill(EMPTY_KEY) }
+    private var values = DoubleArray(keys.size)
+    var size = 0
+        private set
+
+    fun containsKey(key: Long): Boolean = indexOf(key) >= 0
+
+    fun getOrDefault(key: Long, defaultValue: Double): Double {
+        val index = indexOf(key)
+        return if (index >= 0) values[index] else defaultValue
+    }
+
+    fun put(key: Long, value: Double) {
+        require(key != EMPTY_KEY) { "Reserved key" }
+        val mask = keys.size - 1
+        var slot = mix(key) and mask
+        while (true) {
+            val current = keys[slot]
+            if (current == EMPTY_KEY) {
+                keys[slot] = key
+                values[slot] = value
+                if (++size * 4 > keys.size * 3) rehash(keys.size shl 1)
+                return
+            }
+            if (current == key) {
+                values[slot] = value
+                return
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    fun remove(key: Long): Boolean {
+        val index = indexOf(key)
+        if (index < 0) return false
+        deleteSlot(keys, index) { from, to -> values[to] = values[from] }
+        size--
+        return true
+    }
+
+    private fun indexOf(key: Long): Int {
+        val mask = keys.size - 1
+        var slot = mix(key) and mask
+        while (true) {
+            val current = keys[slot]
+            if (current == key) return slot
+            if (current == EMPTY_KEY) return -1
+            slot = (slot + 1) and mask
+        }
+    }
+
+    private fun rehash(capacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+        keys = LongArray(capacity).also { it.fill(EMPTY_KEY) }
+        values = DoubleArray(capacity)
+        size = 0
+        for (i in oldKeys.indices) {
+            if (oldKeys[i] != EMPTY_KEY) put(oldKeys[i], oldValues[i])
+        }
+    }
+}
+
+class LongLongMap(expectedSize: Int = 16) {
+    private var keys = LongArray(tableSizeFor(expectedSize)).also { it.fill(EMPTY_KEY) }
+    private var values = LongArray(keys.size)
+    var size = 0
+        private set
+
+    fun containsKey(key: Long): Boolean = indexOf(key) >= 0
+
+    fun getOrDefault(key: Long, defaultValue: Long): Long {
+        val index = indexOf(key)
+        return if (index >= 0) values[index] else defaultValue
+    }
+
+    fun put(key: Long, value: Long) {
+        require(key != EMPTY_KEY) { "Reserved key" }
+        val mask = keys.size - 1
+        var slot = mix(key) and mask
+        while (true) {
+            val current = keys[slot]
+            if (current == EMPTY_KEY) {
+                keys[slot] = key
+                values[slot] = value
+                if (++size * 4 > keys.size * 3) rehash(keys.size shl 1)
+                return
+            }
+            if (current == key) {
+                values[slot] = value
+                return
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    fun remove(key: Long): Boolean {
+        val index = indexOf(key)
+        if (index < 0) return false
+        deleteSlot(keys, index) { from, to -> values[to] = values[from] }
+        size--
+        return true
+    }
+
+    private fun indexOf(key: Long): Int {
+        val mask = keys.size - 1
+        var slot = mix(key) and mask
+        while (true) {
+            val current = keys[slot]
+            if (current == key) return slot
+            if (current == EMPTY_KEY) return -1
+            slot = (slot + 1) and mask
+        }
+    }
+
+    private fun rehash(capacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+        keys = LongArray(capacity).also { it.fill(EMPTY_KEY) }
+        values = LongArray(capacity)
+        size = 0
+        for (i in oldKeys.indices) {
+            if (oldKeys[i] != EMPTY_KEY) put(oldKeys[i], oldValues[i])
+        }
+    }
+}
+
+// Backward-shift deletion for linear probing, so lookups never need tombstones
+private inline fun deleteSlot(keys: LongArray, index: Int, moveValue: (from: Int, to: Int) -> Unit) {
+    val mask = keys.size - 1
+    var gap = index
+    var slot = (gap + 1) and mask
+    while (keys[slot] != EMPTY_KEY) {
+        val home = mix(keys[slot]) and mask
+        // Move the entry back if its home slot is not cyclically within (gap, slot]
+        val shouldMove = if (gap <= slot) home <= gap || home > slot else home <= gap && home > slot
+        if (shouldMove) {
+            keys[gap] = keys[slot]
+            moveValue(slot, gap)
+            gap = slot
+        }
+        slot = (slot + 1) and mask
+    }
+    keys[gap] = EMPTY_KEY
+}
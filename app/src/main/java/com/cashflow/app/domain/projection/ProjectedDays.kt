@@ -0,0 +1,85 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.domain.model.*
+import kotlinx.datetime.LocalDate
+import java.util.BitSet
+
+// Scheduled occurrences are stored once per projection in CSR form: the events of day d are
+// at positions eventOffsets[d] until eventOffsets[d + 1], income before bills, in schedule order
+internal const val EVENT_INCOME: Byte = 0
+internal const val EVENT_BILL: Byte = 1
+
+// Immutable columnar copy of a projection, shared by every ProjectedDays view cut from it
+class ProjectionColumns internal constructor(
+    val firstDay: Int,
+    val dayCount: Int,
+    private val balances: DoubleArray,
+    private val negative: BitSet,
+    private val warning: BitSet,
+    private val eventOffsets: IntArray,
+    private val eventKinds: ByteArray,
+    private val eventSourceIds: LongArray,
+    private val eventAmounts: DoubleArray,
+    private val eventActive: BitSet, // Cleared once an occurrence is paid/received
+    private val transactionOffsets: IntArray,
+    private val transactions: Array<Transaction>,
+    private val incomeById: Map<Long, Income>,
+    private val billById: Map<Long, Bill>
+) {
+    fun balanceAt(offset: Int): Double = balances[offset]
+
+    fun isNegative(offset: Int): Boolean = negative[offset]
+
+    fun isWarning(offset: Int): Boolean = warning[offset]
+
+    fun day(offset: Int): CashFlowDay {
+        var income: MutableList<IncomeEvent>? = null
+        var bills: MutableList<BillEvent>? = null
+        for (i in eventOffsets[offset] until eventOffsets[offset + 1]) {
+            if (!eventActive[i]) continue
+            val sourceId = eventSourceIds[i]
+            if (eventKinds[i] == EVENT_INCOME) {
+                val source = incomeById.getValue(sourceId)
+                (income ?: mutableListOf<IncomeEvent>().also { income = it })
+                    .add(IncomeEvent(sourceId, source.name, eventAmounts[i], source.accountId))
+            } else {
+                val source = billById.getValue(sourceId)
+                (bills ?: mutableListOf<BillEvent>().also { bills = it })
+                    .add(BillEvent(sourceId, source.name, eventAmounts[i]))
+            }
+        }
+        val from = transactionOffsets[offset]
+        val to = transactionOffsets[offset + 1]
+        return CashFlowDay(
+            date = LocalDate.fromEpochDays(firstDay + offset),
+            balance = balances[offset],
+            isNegative = negative[offset],
+            isWarning = warning[offset],
+            income = income ?: emptyList(),
+            bills = bills ?: emptyList(),
+            transactions = if (from == to) emptyList() else transactions.asList().subList(from, to)
+        )
+    }
+}
+
+// Read-only list of days backed by ProjectionColumns; each CashFlowDay is built only when read
+class ProjectedDays internal constructor(
+    val columns: ProjectionColumns,
+    private val from: Int,
+    override val size: Int
+) : AbstractList<CashFlowDay>(), RandomAccess {
+
+    override fun get(index: Int): CashFlowDay {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("index: $index, size: $size")
+        return columns.day(from + index)
+    }
+
+    // First [count] days, sharing this view's columns
+    fun slice(count: Int): ProjectedDays =
+        if (count >= size) this else ProjectedDays(columns, from, count.coerceAtLeast(0))
+
+    // Identity equality: comparing contents would materialize every day on each StateFlow emission
+    override fun equals(other: Any?): Boolean = this === other
+
+    override fun hashCode(): Int = System.identityHashCode(this)
+}
@@ -0,0 +1,22 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.domain.model.Transaction
+import kotlinx.datetime.LocalDate
+
+// A single write, described precisely enough for a projection to patch itself
+sealed class ProjectionChange {
+    data class TransactionAdded(val transaction: Transaction) : ProjectionChange()
+    data class TransactionRemoved(val transaction: Transaction) : ProjectionChange()
+    data class BillPaid(val billId: Long, val dueDate: LocalDate, val accountId: Long) : ProjectionChange()
+    data class BillOverrideChanged(val billId: Long, val date: LocalDate, val amount: Double?) : ProjectionChange() // null = removed
+    data class IncomeOverrideChanged(val incomeId: Long, val date: LocalDate, val amount: Double?) : ProjectionChange() // null = removed
+    object Rebuild : ProjectionChange() // Anything else (accounts, schedules, imports) needs a full rebuild
+}
+
+// The changes committed by one repository write, stamped with its position in the write order.
+// Every write takes the next number, but updates are published after the write lock is released and
+// may arrive out of turn; one that does not follow the last applied is treated as a Rebuild.
+data class ProjectionUpdate(
+    val sequence: Long,
+    val changes: List<ProjectionChange>
+)
@@ -0,0 +1,86 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.data.model.TransactionType
+import com.cashflow.app.domain.model.BillPayment
+import com.cashflow.app.domain.model.Transaction
+
+// Lookup structures built once per projection run so every occurrence is matched in O(1)
+class ProjectionIndex(snapshot: ProjectionSnapshot) {
+    val firstDay: Int = snapshot.startDate.toEpochDays()
+    val dayCount: Int = (snapshot.endDate.toEpochDays() - firstDay + 1).coerceAtLeast(0)
+
+    private val transactions = snapshot.transactions
+
+    // Transactions bucketed by day offset: indices for day d are in order[offsets[d] until offsets[d + 1]]
+    private val transactionOffsets = IntArray(dayCount + 1)
+    private val transactionOrder: IntArray
+
+    // (incomeId, epochDay) -> account the income was received into
+    val receivedIncome: LongLongMap = receivedIncome(transactions)
+
+    // (billId, epochDay) -> account the bill was paid from
+    val paidBills: LongLongMap = paidBills(snapshot.billPayments)
+
+    // (incomeId | billId, epochDay) -> overridden amount
+    val incomeOverrides = LongDoubleMap(snapshot.incomeOverrides.values.sumOf { it.size })
+    val billOverrides = LongDoubleMap(snapshot.billOverrides.values.sumOf { it.size })
+
+    init {
+        // Counting sort keeps each day's transactions in snapshot order
+        for (transaction in transactions) {
+            val offset = transaction.date.toEpochDays() - firstDay
+            if (offset in 0 until dayCount) transactionOffsets[offset + 1]++
+        }
+        for (d in 0 until dayCount) transactionOffsets[d + 1] += transactionOffsets[d]
+        transactionOrder = IntArray(transactionOffsets[dayCount])
+        val cursor = transactionOffsets.copyOf(dayCount)
+        transactions.forEachIndexed { index, transaction ->
+            val offset = transaction.date.toEpochDays() - firstDay
+            if (offset in 0 until dayCount) transactionOrder[cursor[offset]++] = index
+        }
+
+        for ((incomeId, overrides) in snapshot.incomeOverrides) {
+            for ((date, amount) in overrides) incomeOverrides.put(occurrenceKey(incomeId, date.toEpochDays()), amount)
+        }
+        for ((billId, overrides) in snapshot.billOverrides) {
+            for ((date, amount) in overrides) billOverrides.put(occurrenceKey(billId, date.toEpochDays()), amount)
+        }
+    }
+
+    fun transactionCount(offset: Int): Int = transactionOffsets[offset + 1] - transactionOffsets[offset]
+
+    inline fun forEachTransaction(offset: Int, action: (Transaction) -> Unit) {
+        for (i in 0 until transactionCount(offset)) action(transactionAt(offset, i))
+    }
+
+    fun transactionAt(offset: Int, position: Int): Transaction =
+        transactions[transactionOrder[transactionOffsets[offset] + position]]
+
+    companion object {
+        // Accounts keyed by (incomeId, epochDay); the newest matching transaction wins, as the
+        // occurrence triggers and reconcile pick it (ORDER BY id DESC LIMIT 1)
+        fun receivedIncome(transactions: List<Transaction>): LongLongMap {
+            val received = LongLongMap()
+            val newestIds = LongLongMap()
+            for (transaction in transactions) {
+                val incomeId = transaction.relatedIncomeId ?: continue
+                if (transaction.type == TransactionType.INCOME) {
+                    val key = occurrenceKey(incomeId, transaction.date.toEpochDays())
+                    if (transaction.id > newestIds.getOrDefault(key, Long.MIN_VALUE)) {
+                        newestIds.put(key, transaction.id)
+                        received.put(key, transaction.accountId)
+                    }
+                }
+            }
+            return received
+        }
+
+        fun paidBills(payments: List<BillPayment>): LongLongMap {
+            val paid = LongLongMap(payments.size)
+            for (payment in payments) {
+                paid.put(occurrenceKey(payment.billId, payment.paymentDate.toEpochDays()), payment.accountId)
+            }
+            return paid
+        }
+    }
+}
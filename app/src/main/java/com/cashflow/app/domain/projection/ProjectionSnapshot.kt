@@ -0,0 +1,18 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.domain.model.*
+import kotlinx.datetime.LocalDate
+
+// Immutable inputs for projecting cash flow over [startDate, endDate]
+data class ProjectionSnapshot(
+    val startDate: LocalDate,
+    val endDate: LocalDate,
+    val accounts: List<Account>,
+    val income: List<Income>,
+    val bills: List<Bill>,
+    val incomeOverrides: Map<Long, Map<LocalDate, Double>>, // incomeId -> date -> amount
+    val billOverrides: Map<Long, Map<LocalDate, Double>>, // billId -> date -> amount
+    val billPayments: List<BillPayment>,
+    val transactions: List<Transaction>, // Transactions dated within the range
+    val sequence: Long = 0 // Repository write sequence the rows were read at
+)
@@ -0,0 +1,119 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.data.model.RecurrenceType
+
+/**
+ * Computes bill and income occurrences directly on epoch-day integers.
+ *
+ * Instead of testing every calendar day against a schedule, each call jumps straight to the
+ * next matching day, so walking a range costs one step per occurrence.
+ */
+object RecurrenceEngine {
+    // Returned when a schedule has no further occurrences
+    const val NONE = Int.MAX_VALUE
+
+    // Used as the end day for schedules without an end date
+    const val OPEN_END = Int.MAX_VALUE - 1
+
+    // First occurrence on or after fromDay, or NONE
+    fun firstOnOrAfter(startDay: Int, recurrenceType: RecurrenceType, fromDay: Int): Int {
+        if (recurrenceType == RecurrenceType.CUSTOM) return NONE // Custom recurrence is not scheduled yet
+        if (fromDay <= startDay) return startDay
+
+        return when (recurrenceType) {
+            RecurrenceType.WEEKLY -> alignUp(startDay, 7, fromDay)
+            RecurrenceType.BI_WEEKLY -> alignUp(startDay, 14, fromDay)
+            RecurrenceType.MONTHLY -> nextMonthly(dayOfMonth(startDay), fromDay)
+            RecurrenceType.CUSTOM -> NONE
+        }
+    }
+
+    // Occurrence following an occurrence day, or NONE
+    fun nextAfter(startDay: Int, recurrenceType: RecurrenceType, occurrenceDay: Int): Int =
+        when (recurrenceType) {
+            RecurrenceType.WEEKLY -> occurrenceDay + 7
+            RecurrenceType.BI_WEEKLY -> occurrenceDay + 14
+            RecurrenceType.MONTHLY -> nextMonthly(dayOfMonth(startDay), occurrenceDay + 1)
+            RecurrenceType.CUSTOM -> NONE
+        }
+
+    fun occursOn(startDay: Int, endDay: Int, recurrenceType: RecurrenceType, day: Int): Boolean {
+        if (day < startDay || day > endDay) return false
+        return firstOnOrAfter(startDay, recurrenceType, day) == day
+    }
+
+    // Calls action for every occurrence in [fromDay, toDay], clipped to the schedule's end day
+    inline fun forEachOccurrence(
+        startDay: Int,
+        endDay: Int,
+        recurrenceType: RecurrenceType,
+        fromDay: Int,
+        toDay: Int,
+        action: (Int) -> Unit
+    ) {
+        val lastDay = minOf(endDay, toDay)
+        var day = firstOnOrAfter(startDay, recurrenceType, fromDay)
+        while (day <= lastDay) {
+            action(day)
+            day = nextAfter(startDay, recurrenceType, day)
+        }
+    }
+
+    private fun alignUp(startDay: Int, stride: Int, fromDay: Int): Int {
+        val remainder = (fromDay - startDay) % stride
+        return if (remainder == 0) fromDay else fromDay + (stride - remainder)
+    }
+
+    // Monthly schedules only fall on months that have the start day's day-of-month (e.g. the 31st skips April)
+    private fun nextMonthly(dayOfMonth: Int, fromDay: Int): Int {
+        val civil = civilFromDays(fromDay)
+        var year = civilYear(civil)
+        var month = civilMonth(civil)
+        if (civilDay(civil) > dayOfMonth) {
+            if (++month > 12) { month = 1; year++ }
+        }
+        while (dayOfMonth > lengthOfMonth(year, month)) {
+            if (++month > 12) { month = 1; year++ }
+        }
+        return daysFromCivil(year, month, dayOfMonth)
+    }
+
+    fun dayOfMonth(epochDay: Int): Int = civilDay(civilFromDays(epochDay))
+
+    fun lengthOfMonth(year: Int, month: Int): Int = when (month) {
+        2 -> if (isLeapYear(year)) 29 else 28
+        4, 6, 9, 11 -> 30
+        else -> 31
+    }
+
+    private fun isLeapYear(year: Int): Boolean =
+        (year % 4 == 0 && year % 100 != 0) || (year % 400 == 0)
+
+    // Proleptic Gregorian conversions (H. Hinnant's days_from_civil / civil_from_days)
+    fun daysFromCivil(year: Int, month: Int, day: Int): Int {
+        val y = if (month <= 2) year - 1 else year
+        val era = (if (y >= 0) y else y - 399) / 400
+        val yearOfEra = y - era * 400
+        val dayOfYear = (153 * (if (month > 2) month - 3 else month + 9) + 2) / 5 + day - 1
+        val dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear
+        return era * 146097 + dayOfEra - 719468
+    }
+
+    // Packs year, month and day into one Int to avoid allocating a date per step
+    private fun civilFromDays(epochDay: Int): Int {
+        val z = epochDay + 719468
+        val era = (if (z >= 0) z else z - 146096) / 146097
+        val dayOfEra = z - era * 146097
+        val yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365
+        val dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100)
+        val mp = (5 * dayOfYear + 2) / 153
+        val day = dayOfYear - (153 * mp + 2) / 5 + 1
+        val month = if (mp < 10) mp + 3 else mp - 9
+        val year = yearOfEra + era * 400 + if (month <= 2) 1 else 0
+        return (year shl 9) or (month shl 5) or day
+    }
+
+    private fun civilYear(packed: Int) = packed shr 9
+    private fun civilMonth(packed: Int) = (packed shr 5) and 0xF
+    private fun civilDay(packed: Int) = packed and 0x1F
+}
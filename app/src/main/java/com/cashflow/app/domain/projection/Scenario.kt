@@ -0,0 +1,73 @@
+package com.cashflow.app.domain.projection
+
+import com.cashflow.app.domain.model.Bill
+import com.cashflow.app.domain.model.Income
+import kotlinx.datetime.LocalDate
+
+/**
+ * What-if changes layered over a base snapshot. The base lists are never modified; applying a
+ * scenario copies only the schedule lists, and unchanged bills and income are shared.
+ *
+ * Overrides stay keyed by their original dates, so they no longer apply to shifted occurrences.
+ */
+data class Scenario(
+    val billAmounts: Map<Long, Double> = emptyMap(),
+    val incomeAmounts: Map<Long, Double> = emptyMap(),
+    val billShifts: Map<Long, Int> = emptyMap(), // billId -> days every occurrence moves by
+    val incomeShifts: Map<Long, Int> = emptyMap(), // incomeId -> days every occurrence moves by
+    val removedBills: Set<Long> = emptySet(),
+    val removedIncome: Set<Long> = emptySet(),
+    val addedBills: List<Bill> = emptyList(), // Ids must not clash with stored bills; use negative ids
+    val addedIncome: List<Income> = emptyList() // Ids must not clash with stored income; use negative ids
+) {
+    fun withBillAmount(billId: Long, amount: Double) = copy(billAmounts = billAmounts + (billId to amount))
+
+    fun withIncomeAmount(incomeId: Long, amount: Double) = copy(incomeAmounts = incomeAmounts + (incomeId to amount))
+
+    fun applyTo(snapshot: ProjectionSnapshot): ProjectionSnapshot {
+        if (this == NONE) return snapshot
+        val bills = snapshot.bills.mapNotNull { bill ->
+            if (bill.id in removedBills) return@mapNotNull null
+            val amount = billAmounts[bill.id] ?: bill.amount
+            val shift = billShifts[bill.id] ?: 0
+            if (amount == bill.amount && shift == 0) {
+                bill
+            } else {
+                bill.copy(
+                    amount = amount,
+                    startDate = bill.startDate.shiftedBy(shift),
+                    endDate = bill.endDate?.shiftedBy(shift)
+                )
+            }
+        }
+        val income = snapshot.income.mapNotNull { income ->
+            if (income.id in removedIncome) return@mapNotNull null
+            val amount = incomeAmounts[income.id] ?: income.amount
+            val shift = incomeShifts[income.id] ?: 0
+            if (amount == income.amount && shift == 0) {
+                income
+            } else {
+                income.copy(amount = amount, startDate = income.startDate.shiftedBy(shift))
+            }
+        }
+        return snapshot.copy(bills = bills + addedBills, income = income + addedIncome)
+    }
+
+    private fun LocalDate.shiftedBy(days: Int): LocalDate =
+        if (days == 0) this else LocalDate.fromEpochDays(toEpochDays() + days)
+
+    companion object {
+        val NONE = Scenario()
+    }
+}
+
+// Projects any number of scenarios over one snapshot entirely in memory, reusing its index
+class ScenarioProjector(val snapshot: ProjectionSnapshot) {
+    val index = ProjectionIndex(snapshot)
+
+    val baseline: CashFlowProjection by lazy { project(Scenario.NONE) }
+
+    // The result shares this projector's index, so it cannot be patched with apply()
+    fun project(scenario: Scenario): CashFlowProjection =
+        CashFlowProjection.build(scenario.applyTo(snapshot), sharedIndex = index)
+}
@@ -1,8 +1,16 @@
 package com.cashflow.app.domain.repository
 
+import androidx.paging.PagingData
 import com.cashflow.app.domain.model.*
+import com.cashflow.app.domain.projection.CashFlowProjection
+import com.cashflow.app.domain.projection.ProjectionSnapshot
+import com.cashflow.app.domain.projection.ProjectionUpdate
+import com.cashflow.app.domain.projection.Scenario
+import com.cashflow.app.domain.projection.ScenarioProjector
 import kotlinx.coroutines.flow.Flow
 import kotlinx.datetime.LocalDate
+import java.io.InputStream
+import java.io.OutputStream
 
 interface CashFlowRepository {
     // Accounts
@@ -41,24 +49,46 @@ interface CashFlowRepository {
     suspend fun markIncomeAsReceived(incomeId: Long, date: LocalDate, accountId: Long, amount: Double): Long
     
     // Future Occurrences
+    fun observeFutureBillOccurrences(): Flow<Result<Map<Long, List<BillOccurrence>>>> // Active bills, next 365 days, by bill id; a failed read is a value, not the end of the flow
+    fun observeFutureIncomeOccurrences(): Flow<Result<Map<Long, List<IncomeOccurrence>>>> // Active income, next 365 days, by income id; failures as above
     suspend fun getFutureBillOccurrences(bill: Bill, startDate: LocalDate, endDate: LocalDate): List<BillOccurrence>
     suspend fun getFutureIncomeOccurrences(income: Income, startDate: LocalDate, endDate: LocalDate): List<IncomeOccurrence>
+    suspend fun getDueBillReminders(): List<BillOccurrence> // Unpaid, due within each bill's reminder lead time
+    suspend fun extendOccurrenceWindow() // Rolls the stored occurrences forward; run daily in the background
 
     // Transactions
-    fun getAllTransactions(): Flow<List<Transaction>>
-    fun getTransactionsForAccount(accountId: Long): Flow<List<Transaction>>
+    fun getPagedTransactions(filter: TransactionFilter = TransactionFilter()): Flow<PagingData<Transaction>> // Newest first
+    fun getTransactionTotals(filter: TransactionFilter = TransactionFilter()): Flow<TransactionTotals>
     fun getTransactionsBetween(startDate: LocalDate, endDate: LocalDate): Flow<List<Transaction>>
     suspend fun getTransactionById(id: Long): Transaction?
+    fun search(text: String): Flow<PagingData<SearchHit>> // Ranked prefix matches over descriptions and names
     suspend fun insertTransaction(transaction: Transaction): Long
     suspend fun updateTransaction(transaction: Transaction)
     suspend fun deleteTransaction(transaction: Transaction)
+
+    // Balance History (recorded transactions only, no projected bills or income)
+    suspend fun getBalanceOn(date: LocalDate): Double
+    suspend fun getBalanceHistory(accountId: Long, startDate: LocalDate, endDate: LocalDate): List<BalancePoint>
+
+    // Reports: recorded transactions per calendar month, for every account or one account's own
+    fun getMonthlyTotals(startDate: LocalDate, endDate: LocalDate, accountId: Long? = null): Flow<List<MonthlyTotals>>
     
     // Data Management
     suspend fun clearAllData()
-    suspend fun exportData(): String
-    suspend fun importData(jsonData: String): Result<Unit>
+    suspend fun exportData(output: OutputStream, format: BackupFormat = BackupFormat.JSON)
+    suspend fun exportIncrementalData(output: OutputStream): Boolean // Binary; true if only changes since the last backup were written
+    fun importData(input: InputStream): Flow<ImportProgress> // Runs the import when collected; reads any BackupFormat
+
+    // Change Notifications
+    fun observeTableVersion(table: DataTable): Flow<Long> // Bumped once per committed write touching the table
+    fun observeChanges(vararg tables: DataTable): Flow<Unit> // Emits when collected, then after writes to any of the tables
 
     // Cash Flow Calculation
+    fun observeProjectionUpdates(): Flow<ProjectionUpdate>
+    suspend fun loadProjectionSnapshot(startDate: LocalDate, endDate: LocalDate): ProjectionSnapshot
+    suspend fun loadProjection(startDate: LocalDate, endDate: LocalDate): CashFlowProjection
+    suspend fun loadScenarioProjector(startDate: LocalDate, endDate: LocalDate): ScenarioProjector
+    suspend fun projectScenario(startDate: LocalDate, endDate: LocalDate, scenario: Scenario): List<CashFlowDay>
     suspend fun calculateCashFlow(
         startDate: LocalDate,
         endDate: LocalDate,
@@ -6,7 +6,6 @@ import androidx.core.app.NotificationManagerCompat
 import androidx.work.CoroutineWorker
 import androidx.work.WorkerParameters
 import com.cashflow.app.di.AppModule
-import kotlinx.coroutines.flow.first
 import kotlinx.datetime.*
 
 class NotificationWorker(
@@ -19,20 +18,18 @@ class NotificationWorker(
         val timeZone = TimeZone.currentSystemDefault()
         val today = Clock.System.now().toLocalDateTime(timeZone).date
         
-        // Check for upcoming bills
-        val bills = repository.getAllActiveBills().first()
-        val upcomingBills = bills.filter { bill ->
-            val daysUntilDue = (bill.startDate.toEpochDays() - today.toEpochDays()).toInt()
-            daysUntilDue in 0..bill.reminderDaysBefore
-        }
+        // Unpaid occurrences inside each bill's reminder lead time, read by index from the occurrences table
+        val upcomingBills = repository.getDueBillReminders()
 
         if (upcomingBills.isNotEmpty()) {
             val notificationManager = NotificationManagerCompat.from(applicationContext)
-            upcomingBills.forEach { bill ->
+            upcomingBills.forEach { occurrence ->
+                val bill = occurrence.bill
+                val daysUntilDue = occurrence.dueDate.toEpochDays() - today.toEpochDays()
                 val notification = NotificationCompat.Builder(applicationContext, "cashflow_channel")
                     .setSmallIcon(android.R.drawable.ic_dialog_info)
                     .setContentTitle("Upcoming Bill: ${bill.name}")
-                    .setContentText("Due in ${bill.reminderDaysBefore} days: $${bill.amount}")
+                    .setContentText("Due in $daysUntilDue days: $${occurrence.amount}")
                     .setPriority(NotificationCompat.PRIORITY_DEFAULT)
                     .build()
                 
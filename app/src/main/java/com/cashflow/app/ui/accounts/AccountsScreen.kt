@@ -22,6 +22,9 @@ import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
 import androidx.lifecycle.viewmodel.compose.viewModel
+import androidx.paging.compose.LazyPagingItems
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.cashflow.app.data.model.AccountType
 import com.cashflow.app.domain.model.Account
 import com.cashflow.app.domain.repository.CashFlowRepository
@@ -99,7 +102,8 @@ fun AccountsScreen(repository: CashFlowRepository) {
         if (state.showAccountDetail && selectedAccount != null) {
             AccountDetailDialog(
                 account = selectedAccount,
-                transactions = state.accountTransactions,
+                transactions = viewModel.accountTransactions.collectAsLazyPagingItems(),
+                transactionCount = state.accountTransactionCount,
                 onDismiss = { viewModel.handleIntent(AccountsIntent.HideAccountDetail) }
             )
         }
@@ -262,7 +266,8 @@ fun AccountDialog(
 @Composable
 fun AccountDetailDialog(
     account: Account,
-    transactions: List<com.cashflow.app.domain.model.Transaction>,
+    transactions: LazyPagingItems<com.cashflow.app.domain.model.Transaction>,
+    transactionCount: Int,
     onDismiss: () -> Unit
 ) {
     AlertDialog(
@@ -327,7 +332,7 @@ fun AccountDetailDialog(
                         fontWeight = FontWeight.Bold
                     )
                     Text(
-                        text = "${transactions.size} total",
+                        text = "$transactionCount total",
                         style = MaterialTheme.typography.bodySmall,
                         color = MaterialTheme.colorScheme.onSurfaceVariant
                     )
@@ -336,7 +341,7 @@ fun AccountDetailDialog(
                 Spacer(modifier = Modifier.height(12.dp))
                 
                 // Transactions List
-                if (transactions.isEmpty()) {
+                if (transactions.itemCount == 0) {
                     Box(
                         modifier = Modifier
                             .fillMaxWidth()
@@ -365,8 +370,11 @@ fun AccountDetailDialog(
                         verticalArrangement = Arrangement.spacedBy(8.dp),
                         modifier = Modifier.heightIn(max = 400.dp)
                     ) {
-                        items(transactions.size) { index ->
-                            val transaction = transactions[index]
+                        items(
+                            count = transactions.itemCount,
+                            key = transactions.itemKey { it.id }
+                        ) { index ->
+                            val transaction = transactions[index] ?: return@items
                             TransactionItemCompact(transaction = transaction)
                         }
                     }
@@ -1,7 +1,6 @@
 package com.cashflow.app.ui.accounts
 
 import com.cashflow.app.domain.model.Account
-import com.cashflow.app.domain.model.Transaction
 
 data class AccountsState(
     val accounts: List<Account> = emptyList(),
@@ -10,7 +9,7 @@ data class AccountsState(
     val showAddDialog: Boolean = false,
     val editingAccount: Account? = null,
     val selectedAccount: Account? = null,
-    val accountTransactions: List<Transaction> = emptyList(),
+    val accountTransactionCount: Int = 0,
     val showAccountDetail: Boolean = false
 )
 
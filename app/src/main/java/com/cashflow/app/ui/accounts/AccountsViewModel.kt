@@ -2,7 +2,13 @@ package com.cashflow.app.ui.accounts
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.cashflow.app.domain.model.Transaction
+import com.cashflow.app.domain.model.TransactionFilter
 import com.cashflow.app.domain.repository.CashFlowRepository
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
 
@@ -13,6 +19,21 @@ class AccountsViewModel(
     private val _state = MutableStateFlow(AccountsState())
     val state: StateFlow<AccountsState> = _state.asStateFlow()
 
+    private val selectedAccountId = MutableStateFlow<Long?>(null)
+    private var totalsJob: Job? = null
+
+    // Pages of the selected account's history; switching accounts drops the previous pager
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val accountTransactions: Flow<PagingData<Transaction>> = selectedAccountId
+        .flatMapLatest { accountId ->
+            if (accountId == null) {
+                flowOf(PagingData.empty())
+            } else {
+                repository.getPagedTransactions(TransactionFilter(accountId = accountId))
+            }
+        }
+        .cachedIn(viewModelScope)
+
     init {
         handleIntent(AccountsIntent.LoadAccounts)
     }
@@ -63,28 +84,33 @@ class AccountsViewModel(
                 }
             }
             is AccountsIntent.ShowAccountDetail -> {
-                viewModelScope.launch {
-                    try {
-                        repository.getTransactionsForAccount(intent.account.id)
-                            .collect { transactions ->
-                                _state.update {
-                                    it.copy(
-                                        selectedAccount = intent.account,
-                                        accountTransactions = transactions,
-                                        showAccountDetail = true
-                                    )
-                                }
-                            }
-                    } catch (e: Exception) {
-                        _state.update { it.copy(error = e.message) }
-                    }
+                selectedAccountId.value = intent.account.id
+                _state.update {
+                    it.copy(
+                        selectedAccount = intent.account,
+                        accountTransactionCount = 0,
+                        showAccountDetail = true
+                    )
+                }
+                totalsJob?.cancel()
+                totalsJob = viewModelScope.launch {
+                    repository.getTransactionTotals(TransactionFilter(accountId = intent.account.id))
+                        .catch { e ->
+                            _state.update { it.copy(error = e.message) }
+                        }
+                        .collect { totals ->
+                            _state.update { it.copy(accountTransactionCount = totals.count) }
+                        }
                 }
             }
             is AccountsIntent.HideAccountDetail -> {
+                totalsJob?.cancel()
+                totalsJob = null
+                selectedAccountId.value = null
                 _state.update {
                     it.copy(
                         selectedAccount = null,
-                        accountTransactions = emptyList(),
+                        accountTransactionCount = 0,
                         showAccountDetail = false
                     )
                 }
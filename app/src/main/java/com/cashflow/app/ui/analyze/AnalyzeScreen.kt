@@ -201,6 +201,14 @@ fun AnalyzeScreen(
                                 text = "You can save $${String.format("%.2f", state.totalSavings)} per cycle while staying cash flow positive!",
                                 style = MaterialTheme.typography.bodyMedium
                             )
+                            if (state.isStale) {
+                                Spacer(modifier = Modifier.height(8.dp))
+                                Text(
+                                    text = "These results predate your latest changes and are being redone.",
+                                    style = MaterialTheme.typography.bodySmall,
+                                    color = MaterialTheme.colorScheme.onSurfaceVariant
+                                )
+                            }
                         }
                     }
                 }
@@ -5,7 +5,6 @@ import androidx.lifecycle.viewModelScope
 import com.cashflow.app.domain.repository.CashFlowRepository
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
-import kotlinx.datetime.toLocalDateTime
 
 class BillsViewModel(
     private val repository: CashFlowRepository
@@ -32,24 +31,18 @@ class BillsViewModel(
         }
     }
 
+    // The repository keeps these current, so one collector serves the screen for its whole life
     private fun loadFutureOccurrences() {
         viewModelScope.launch {
-            repository.getAllActiveBills()
+            repository.observeFutureBillOccurrences()
+                .map { result -> result.map { occurrences -> occurrences.mapValues { (_, list) -> list.filter { !it.isPaid } } } }
                 .catch { e ->
                     _state.update { it.copy(error = e.message) }
                 }
-                .collect { bills ->
-                    val timeZone = kotlinx.datetime.TimeZone.currentSystemDefault()
-                    val today = kotlinx.datetime.Clock.System.now().toLocalDateTime(timeZone).date
-                    val endDate = kotlinx.datetime.LocalDate.fromEpochDays(today.toEpochDays() + 365) // Next year
-                    
-                    val occurrencesMap = bills.associateWith { bill ->
-                        // Get future occurrences and filter out already paid ones
-                        repository.getFutureBillOccurrences(bill, today, endDate)
-                            .filter { !it.isPaid }
-                    }.mapKeys { it.key.id }
-                    
-                    _state.update { it.copy(billOccurrences = occurrencesMap) }
+                .collect { result ->
+                    result
+                        .onSuccess { occurrencesMap -> _state.update { it.copy(billOccurrences = occurrencesMap) } }
+                        .onFailure { e -> _state.update { it.copy(error = e.message) } }
                 }
         }
     }
@@ -64,7 +57,6 @@ class BillsViewModel(
                         }
                         .collect { bills ->
                             _state.update { it.copy(bills = bills, isLoading = false) }
-                            loadFutureOccurrences()
                         }
                 }
             }
@@ -110,7 +102,6 @@ class BillsViewModel(
                             amount = intent.occurrence.amount
                         )
                         _state.update { it.copy(showMarkPaidDialog = false, billToMarkPaid = null) }
-                        loadFutureOccurrences()
                     } catch (e: Exception) {
                         _state.update { it.copy(error = e.message) }
                     }
@@ -134,7 +125,6 @@ class BillsViewModel(
                             amount = intent.newAmount
                         )
                         _state.update { it.copy(showEditAmountDialog = false, billToEditAmount = null) }
-                        loadFutureOccurrences()
                     } catch (e: Exception) {
                         _state.update { it.copy(error = e.message) }
                     }
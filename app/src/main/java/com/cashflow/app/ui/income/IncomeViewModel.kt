@@ -5,7 +5,6 @@ import androidx.lifecycle.viewModelScope
 import com.cashflow.app.domain.repository.CashFlowRepository
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
-import kotlinx.datetime.toLocalDateTime
 
 class IncomeViewModel(
     private val repository: CashFlowRepository
@@ -32,24 +31,18 @@ class IncomeViewModel(
         }
     }
 
+    // The repository keeps these current, so one collector serves the screen for its whole life
     private fun loadFutureOccurrences() {
         viewModelScope.launch {
-            repository.getAllActiveIncome()
+            repository.observeFutureIncomeOccurrences()
+                .map { result -> result.map { occurrences -> occurrences.mapValues { (_, list) -> list.filter { !it.isReceived } } } }
                 .catch { e ->
                     _state.update { it.copy(error = e.message) }
                 }
-                .collect { incomeList ->
-                    val timeZone = kotlinx.datetime.TimeZone.currentSystemDefault()
-                    val today = kotlinx.datetime.Clock.System.now().toLocalDateTime(timeZone).date
-                    val endDate = kotlinx.datetime.LocalDate.fromEpochDays(today.toEpochDays() + 365) // Next year
-                    
-                    val occurrencesMap = incomeList.associateWith { income ->
-                        // Get future occurrences and filter out already received ones
-                        repository.getFutureIncomeOccurrences(income, today, endDate)
-                            .filter { !it.isReceived }
-                    }.mapKeys { it.key.id }
-
-                    _state.update { it.copy(incomeOccurrences = occurrencesMap) }
+                .collect { result ->
+                    result
+                        .onSuccess { occurrencesMap -> _state.update { it.copy(incomeOccurrences = occurrencesMap) } }
+                        .onFailure { e -> _state.update { it.copy(error = e.message) } }
                 }
         }
     }
@@ -64,7 +57,6 @@ class IncomeViewModel(
                         }
                         .collect { incomeList ->
                             _state.update { it.copy(incomeList = incomeList, isLoading = false) }
-                            loadFutureOccurrences()
                         }
                 }
             }
@@ -109,7 +101,6 @@ class IncomeViewModel(
                             amount = intent.newAmount
                         )
                         _state.update { it.copy(showEditAmountDialog = false, incomeToEditAmount = null) }
-                        loadFutureOccurrences()
                     } catch (e: Exception) {
                         _state.update { it.copy(error = e.message) }
                     }
@@ -131,7 +122,6 @@ class IncomeViewModel(
                             amount = intent.occurrence.amount
                         )
                         _state.update { it.copy(showReceivedDialog = false, incomeToMarkReceived = null) }
-                        loadFutureOccurrences()
                     } catch (e: Exception) {
                         _state.update { it.copy(error = e.message) }
                     }
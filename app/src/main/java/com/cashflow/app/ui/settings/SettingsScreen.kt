@@ -15,6 +15,7 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.unit.dp
+import com.cashflow.app.domain.model.BackupFormat
 import kotlinx.coroutines.launch
 import java.io.FileOutputStream
 
@@ -31,19 +32,21 @@ fun SettingsScreen(
     var exportSuccess by remember { mutableStateOf(false) }
     var importSuccess by remember { mutableStateOf(false) }
     var errorMessage by remember { mutableStateOf<String?>(null) }
+    var exportFormat by remember { mutableStateOf(BackupFormat.JSON) }
+    var incrementalExport by remember { mutableStateOf(false) }
+    var exportWasIncremental by remember { mutableStateOf(false) }
 
     val coroutineScope = rememberCoroutineScope()
 
     // File picker for export
     val exportLauncher = rememberLauncherForActivityResult(
-        contract = ActivityResultContracts.CreateDocument("application/json")
+        contract = ActivityResultContracts.CreateDocument(exportFormat.mimeType)
     ) { uri ->
         uri?.let {
             coroutineScope.launch {
                 try {
-                    val jsonData = viewModel.exportData()
                     context.contentResolver.openOutputStream(uri)?.use { outputStream ->
-                        outputStream.write(jsonData.toByteArray())
+                        exportWasIncremental = viewModel.exportData(outputStream, exportFormat, incrementalExport)
                     }
                     exportSuccess = true
                     showExportDialog = true
@@ -62,9 +65,11 @@ fun SettingsScreen(
         uri?.let {
             coroutineScope.launch {
                 try {
-                    val jsonData = context.contentResolver.openInputStream(uri)?.bufferedReader()?.use { it.readText() }
-                    if (jsonData != null) {
-                        val result = viewModel.importData(jsonData)
+                    // Decoded straight from the stream, never held as one string
+                    val result = context.contentResolver.openInputStream(uri)?.buffered()?.use { input ->
+                        viewModel.importData(input)
+                    }
+                    if (result != null) {
                         if (result.isSuccess) {
                             importSuccess = true
                         } else {
@@ -185,10 +190,34 @@ fun SettingsScreen(
                             style = MaterialTheme.typography.bodySmall,
                             color = MaterialTheme.colorScheme.onSurfaceVariant
                         )
+                        Row(verticalAlignment = Alignment.CenterVertically) {
+                            Checkbox(
+                                checked = exportFormat == BackupFormat.BINARY,
+                                onCheckedChange = { compact ->
+                                    exportFormat = if (compact) BackupFormat.BINARY else BackupFormat.JSON
+                                    if (!compact) incrementalExport = false
+                                }
+                            )
+                            Text(
+                                text = "Compact binary format",
+                                style = MaterialTheme.typography.bodySmall
+                            )
+                        }
+                        Row(verticalAlignment = Alignment.CenterVertically) {
+                            Checkbox(
+                                checked = incrementalExport,
+                                onCheckedChange = { incrementalExport = it },
+                                enabled = exportFormat == BackupFormat.BINARY
+                            )
+                            Text(
+                                text = "Only changes since the last backup",
+                                style = MaterialTheme.typography.bodySmall
+                            )
+                        }
                     }
                     Button(
                         onClick = {
-                            exportLauncher.launch("cashflow_backup_${System.currentTimeMillis()}.json")
+                            exportLauncher.launch("cashflow_backup_${System.currentTimeMillis()}.${exportFormat.fileExtension}")
                         }
                     ) {
                         Icon(Icons.Default.Download, contentDescription = null, modifier = Modifier.size(20.dp))
@@ -230,8 +259,9 @@ fun SettingsScreen(
                     }
                     Button(
                         onClick = {
-                            importLauncher.launch(arrayOf("application/json"))
+                            importLauncher.launch(BackupFormat.values().map { it.mimeType }.toTypedArray())
                         },
+                        enabled = state.importProgress == null,
                         colors = ButtonDefaults.buttonColors(
                             containerColor = MaterialTheme.colorScheme.secondary
                         )
@@ -241,6 +271,14 @@ fun SettingsScreen(
                         Text("Import")
                     }
                 }
+                state.importProgress?.let { progress ->
+                    LinearProgressIndicator(
+                        progress = if (progress.totalRows > 0) progress.rowsImported.toFloat() / progress.totalRows else 0f,
+                        modifier = Modifier
+                            .fillMaxWidth()
+                            .padding(start = 20.dp, end = 20.dp, bottom = 20.dp)
+                    )
+                }
             }
         }
 
@@ -256,7 +294,11 @@ fun SettingsScreen(
                 text = {
                     Text(
                         if (exportSuccess) {
-                            "Your data has been exported successfully. You can now share this file with others."
+                            if (exportWasIncremental) {
+                                "The changes since your last backup have been exported. Restore this file after that backup."
+                            } else {
+                                "Your data has been exported successfully. You can now share this file with others."
+                            }
                         } else {
                             "Failed to export data: ${errorMessage ?: "Unknown error"}"
                         }
@@ -2,12 +2,17 @@ package com.cashflow.app.ui.settings
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.cashflow.app.domain.model.BackupFormat
+import com.cashflow.app.domain.model.ImportProgress
 import com.cashflow.app.domain.repository.CashFlowRepository
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
+import java.io.InputStream
+import java.io.OutputStream
 
 class SettingsViewModel(
     initialDarkTheme: Boolean = false,
@@ -24,16 +29,32 @@ class SettingsViewModel(
         onThemeChanged(newValue)
     }
     
-    suspend fun exportData(): String {
-        return repository?.exportData() ?: "{}"
+    // Returns true when only the changes since the last backup were written
+    suspend fun exportData(output: OutputStream, format: BackupFormat, incremental: Boolean): Boolean {
+        val repository = repository ?: throw IllegalStateException("Repository not available")
+        if (incremental) return repository.exportIncrementalData(output)
+        repository.exportData(output, format)
+        return false
     }
     
-    suspend fun importData(jsonData: String): Result<Unit> {
-        return repository?.importData(jsonData) ?: Result.failure(Exception("Repository not available"))
+    // Collects the import, mirroring its progress into state until it finishes or fails
+    suspend fun importData(input: InputStream): Result<Unit> {
+        val repository = repository ?: return Result.failure(Exception("Repository not available"))
+        return try {
+            repository.importData(input).collect { progress ->
+                _state.update { it.copy(importProgress = progress) }
+            }
+            Result.success(Unit)
+        } catch (e: Exception) {
+            Result.failure(e)
+        } finally {
+            _state.update { it.copy(importProgress = null) }
+        }
     }
 }
 
 data class SettingsState(
-    val isDarkTheme: Boolean = false
+    val isDarkTheme: Boolean = false,
+    val importProgress: ImportProgress? = null // Non-null while an import is running
 )
 
@@ -2,10 +2,18 @@ package com.cashflow.app.ui.timeline
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.cashflow.app.domain.model.Account
+import com.cashflow.app.domain.model.CashFlowDay
+import com.cashflow.app.domain.projection.CashFlowProjection
+import com.cashflow.app.domain.projection.ProjectedDays
+import com.cashflow.app.domain.projection.ProjectionUpdate
 import com.cashflow.app.domain.repository.CashFlowRepository
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.*
-import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
 import kotlinx.datetime.Clock
 import kotlinx.datetime.LocalDate
@@ -19,74 +27,125 @@ class TimelineViewModel(
     private val _state = MutableStateFlow(TimelineState())
     val state: StateFlow<TimelineState> = _state.asStateFlow()
 
-    private val accountsFlow = repository.getAllAccounts()
-    private val incomeFlow = repository.getAllActiveIncome()
-    private val billsFlow = repository.getAllActiveBills()
-    private val transactionsFlow = repository.getAllTransactions()
+    // One projection over the longest period; every TimePeriod is served as a prefix slice of it.
+    // Patched in place for single writes, rebuilt for everything else and when the day rolls over.
+    // Only touched on projectionDispatcher, one coroutine at a time.
+    private var projection: CashFlowProjection? = null
+    private val pendingUpdates = ArrayDeque<ProjectionUpdate>()
+    private var lastSequence = 0L
+
+    // Latest published result, read by the day detail dialog
+    @Volatile
+    private var projectedDays: ProjectedDays? = null
+
+    private val horizonDays = TimePeriod.values().maxOf { it.days }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private val projectionDispatcher = Dispatchers.Default.limitedParallelism(1)
+    private val refreshRequests = MutableSharedFlow<Unit>(extraBufferCapacity = 1, onBufferOverflow = BufferOverflow.DROP_OLDEST)
+
+    // A projection result, versioned by the last repository write it includes
+    private class Projected(val version: Long, val days: ProjectedDays?, val error: String? = null)
 
     init {
-        // Watch for changes in accounts, income, bills, or transactions - combine all flows
+        // Writes are logged as they arrive and coalesced into one "bring the projection up to date"
+        // signal; a run still in progress when the next signal lands is cancelled and redone with
+        // everything logged so far. Period changes only re-slice the latest result.
+        @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+        val projections = merge(
+            repository.observeProjectionUpdates()
+                .onEach {
+                    pendingUpdates.addLast(it)
+                    lastSequence = it.sequence
+                }
+                .map { },
+            refreshRequests,
+            dayChanges()
+        )
+            .onStart { emit(Unit) }
+            .debounce(UPDATE_DEBOUNCE_MILLIS)
+            .mapLatest { project() }
+            .flowOn(projectionDispatcher)
+
         viewModelScope.launch {
-            combine(
-                accountsFlow,
-                incomeFlow,
-                billsFlow,
-                transactionsFlow
-            ) { accounts, _, _, _ ->
-                accounts
-            }.collect { accounts ->
-                val currentState = _state.value
-                if (accounts.isNotEmpty() || currentState.selectedTimePeriod != null) {
-                    calculateCashFlow(accounts, currentState)
+            var publishedVersion = -1L
+            combine(projections, _state.map { it.selectedTimePeriod }.distinctUntilChanged()) { projected, period ->
+                projected to period
+            }.collect { (projected, period) ->
+                // A result never replaces one that includes later writes
+                if (projected.version < publishedVersion) return@collect
+                publishedVersion = projected.version
+                projectedDays = projected.days
+                _state.update {
+                    it.copy(
+                        cashFlowDays = projected.days?.slice(period.days).orEmpty(),
+                        isLoading = false,
+                        error = projected.error
+                    )
                 }
             }
         }
-        
-        // Watch for time period changes
-        viewModelScope.launch {
-            _state.map { it.selectedTimePeriod }
-                .distinctUntilChanged()
-                .collect {
-                    val accounts = accountsFlow.first()
-                    val currentState = _state.value
-                    calculateCashFlow(accounts, currentState)
-                }
+    }
+
+    private fun today(): LocalDate = Clock.System.now().toLocalDateTime(TimeZone.currentSystemDefault()).date
+
+    // Signals each change of the local date, so the projection starts at the new day even when
+    // nothing is written. Checked at short intervals rather than slept until midnight: delays
+    // stop while the device sleeps, and the clock or time zone may be changed meanwhile.
+    private fun dayChanges(): Flow<Unit> = flow {
+        var day = today()
+        while (true) {
+            delay(DAY_CHECK_INTERVAL_MILLIS)
+            val now = today()
+            if (now != day) {
+                day = now
+                emit(Unit)
+            }
+        }
+    }
+
+    // Applies the logged writes to the current projection, or rebuilds it when one cannot be patched
+    private suspend fun project(): Projected {
+        val current = projection
+        if (current != null && current.firstDay == today().toEpochDays() && applyPending(current)) {
+            return Projected(current.sequence, current.days())
+        }
+        return try {
+            calculateCashFlow()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            projection = null
+            Projected(lastSequence, null, e.message ?: "Error calculating cash flow")
         }
     }
 
+    private fun applyPending(current: CashFlowProjection): Boolean {
+        while (pendingUpdates.isNotEmpty()) {
+            if (!current.apply(pendingUpdates.first())) return false
+            pendingUpdates.removeFirst()
+        }
+        return true
+    }
+
     fun handleIntent(intent: TimelineIntent) {
         when (intent) {
             is TimelineIntent.SetTimePeriod -> {
                 _state.update { it.copy(selectedTimePeriod = intent.period) }
             }
             is TimelineIntent.Refresh -> {
-                // Trigger recalculation by updating state
-                _state.update { it }
+                refreshRequests.tryEmit(Unit)
             }
             is TimelineIntent.ShowDayDetail -> {
                 viewModelScope.launch {
                     try {
                         val selectedDate = intent.day.date
-                        val accounts = accountsFlow.first()
-                        
-                        // Calculate a far back start date to capture all historical data
-                        val historicalStartDate = LocalDate(selectedDate.year - 2, 1, 1)
                         
                         // Calculate previous month same date
-                        val previousMonthDate = getPreviousMonthDate(selectedDate)
-                        val previousMonthDay = if (previousMonthDate != null && previousMonthDate >= historicalStartDate) {
-                            // Calculate from far back to get accurate balance on that date
-                            val cashFlowDays = repository.calculateCashFlow(historicalStartDate, previousMonthDate, accounts)
-                            cashFlowDays.lastOrNull()
-                        } else null
+                        val previousMonthDay = getPreviousMonthDate(selectedDate)?.let { dayOn(it) }
                         
                         // Calculate last year same date
-                        val lastYearDate = getLastYearDate(selectedDate)
-                        val lastYearDay = if (lastYearDate != null && lastYearDate >= historicalStartDate) {
-                            // Calculate from far back to get accurate balance on that date
-                            val cashFlowDays = repository.calculateCashFlow(historicalStartDate, lastYearDate, accounts)
-                            cashFlowDays.lastOrNull()
-                        } else null
+                        val lastYearDay = getLastYearDate(selectedDate)?.let { dayOn(it) }
                         
                         _state.update {
                             it.copy(
@@ -114,6 +173,22 @@ class TimelineViewModel(
         }
     }
     
+    // Days inside the projection come from it; earlier days use the recorded balance history
+    private suspend fun dayOn(date: LocalDate): CashFlowDay {
+        val days = projectedDays
+        if (days != null) {
+            val offset = date.toEpochDays() - days.columns.firstDay
+            if (offset in days.indices) return days[offset]
+        }
+        val balance = repository.getBalanceOn(date)
+        return CashFlowDay(
+            date = date,
+            balance = balance,
+            isNegative = balance < 0,
+            isWarning = balance >= 0 && balance < 100
+        )
+    }
+
     private fun getPreviousMonthDate(date: LocalDate): LocalDate? {
         return try {
             val previousMonthNumber = if (date.monthNumber == 1) 12 else date.monthNumber - 1
@@ -146,48 +221,38 @@ class TimelineViewModel(
         return (year % 4 == 0 && year % 100 != 0) || (year % 400 == 0)
     }
 
-    private suspend fun calculateCashFlow(accounts: List<Account>, currentState: TimelineState) {
+    private suspend fun calculateCashFlow(): Projected {
         _state.update { it.copy(isLoading = true, error = null) }
+        projection = null
 
-        try {
-            // Handle empty accounts gracefully
-            if (accounts.isEmpty()) {
-                _state.update {
-                    it.copy(
-                        cashFlowDays = emptyList(),
-                        isLoading = false,
-                        error = null
-                    )
-                }
-                return
-            }
-            
-            val timeZone = TimeZone.currentSystemDefault()
-            val today = Clock.System.now().toLocalDateTime(timeZone).date
-            val (startDate, endDate) = when (currentState.selectedTimePeriod) {
-                TimePeriod.DAYS_30 -> today to LocalDate.fromEpochDays(today.toEpochDays() + 29)
-                TimePeriod.DAYS_60 -> today to LocalDate.fromEpochDays(today.toEpochDays() + 59)
-                TimePeriod.DAYS_90 -> today to LocalDate.fromEpochDays(today.toEpochDays() + 89)
-                TimePeriod.DAYS_180 -> today to LocalDate.fromEpochDays(today.toEpochDays() + 179)
-                TimePeriod.DAYS_360 -> today to LocalDate.fromEpochDays(today.toEpochDays() + 359)
-            }
+        val startDate = today()
+        val endDate = LocalDate.fromEpochDays(startDate.toEpochDays() + horizonDays - 1)
+
+        while (true) {
+            val snapshot = repository.loadProjectionSnapshot(startDate, endDate)
 
-            val cashFlowDays = repository.calculateCashFlow(startDate, endDate, accounts)
-            _state.update {
-                it.copy(
-                    cashFlowDays = cashFlowDays,
-                    isLoading = false,
-                    error = null
-                )
+            // Writes the snapshot already includes
+            while (pendingUpdates.isNotEmpty() && pendingUpdates.first().sequence <= snapshot.sequence) {
+                pendingUpdates.removeFirst()
             }
-        } catch (e: Exception) {
-            _state.update {
-                it.copy(
-                    isLoading = false,
-                    error = e.message ?: "Error calculating cash flow"
-                )
+
+            // Handle empty accounts gracefully
+            if (snapshot.accounts.isEmpty()) return Projected(snapshot.sequence, null)
+
+            // Writes logged while the snapshot was read; one that cannot be patched means reading again
+            val newProjection = CashFlowProjection.build(snapshot)
+            if (applyPending(newProjection)) {
+                projection = newProjection
+                return Projected(newProjection.sequence, newProjection.days())
             }
         }
     }
-}
 
+    private companion object {
+        // Long enough to fold a burst of writes (an import, several bills marked paid) into one run
+        const val UPDATE_DEBOUNCE_MILLIS = 150L
+
+        // The timeline moves to a new day within this long of midnight
+        const val DAY_CHECK_INTERVAL_MILLIS = 60_000L
+    }
+}
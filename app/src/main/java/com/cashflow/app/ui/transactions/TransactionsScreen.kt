@@ -2,7 +2,6 @@ package com.cashflow.app.ui.transactions
 
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Add
 import androidx.compose.material.icons.filled.Delete
@@ -19,6 +18,9 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.lifecycle.viewmodel.compose.viewModel
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemKey
 import com.cashflow.app.data.model.TransactionType
 import com.cashflow.app.domain.model.Transaction
 import com.cashflow.app.domain.repository.CashFlowRepository
@@ -32,6 +34,7 @@ import kotlinx.datetime.toLocalDateTime
 fun TransactionsScreen(repository: CashFlowRepository) {
     val viewModel: TransactionsViewModel = viewModel { TransactionsViewModel(repository) }
     val state by viewModel.state.collectAsState()
+    val transactions = viewModel.transactions.collectAsLazyPagingItems()
 
     Column(
         modifier = Modifier
@@ -53,7 +56,7 @@ fun TransactionsScreen(repository: CashFlowRepository) {
 
         Spacer(modifier = Modifier.height(16.dp))
 
-        if (state.isLoading) {
+        if (transactions.loadState.refresh is LoadState.Loading && transactions.itemCount == 0) {
             Box(
                 modifier = Modifier.fillMaxSize(),
                 contentAlignment = Alignment.Center
@@ -64,7 +67,11 @@ fun TransactionsScreen(repository: CashFlowRepository) {
             LazyColumn(
                 verticalArrangement = Arrangement.spacedBy(8.dp)
             ) {
-                items(state.transactions) { transaction ->
+                items(
+                    count = transactions.itemCount,
+                    key = transactions.itemKey { it.id }
+                ) { index ->
+                    val transaction = transactions[index] ?: return@items
                     TransactionItem(
                         transaction = transaction,
                         onEdit = { viewModel.handleIntent(TransactionsIntent.EditTransaction(transaction)) },
@@ -2,6 +2,9 @@ package com.cashflow.app.ui.transactions
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import com.cashflow.app.domain.model.Transaction
 import com.cashflow.app.domain.repository.CashFlowRepository
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
@@ -13,8 +16,11 @@ class TransactionsViewModel(
     private val _state = MutableStateFlow(TransactionsState())
     val state: StateFlow<TransactionsState> = _state.asStateFlow()
 
+    // Paged rather than held in state, so memory stays flat however long the history grows
+    val transactions: Flow<PagingData<Transaction>> =
+        repository.getPagedTransactions().cachedIn(viewModelScope)
+
     init {
-        handleIntent(TransactionsIntent.LoadTransactions)
         loadAccounts()
     }
 
@@ -32,17 +38,6 @@ class TransactionsViewModel(
 
     fun handleIntent(intent: TransactionsIntent) {
         when (intent) {
-            is TransactionsIntent.LoadTransactions -> {
-                viewModelScope.launch {
-                    repository.getAllTransactions()
-                        .catch { e ->
-                            _state.update { it.copy(error = e.message, isLoading = false) }
-                        }
-                        .collect { transactions ->
-                            _state.update { it.copy(transactions = transactions, isLoading = false) }
-                        }
-                }
-            }
             is TransactionsIntent.ShowAddDialog -> {
                 _state.update { it.copy(showAddDialog = true, editingTransaction = null) }
             }
@@ -0,0 +1,34 @@
+package com.cashflow.app.work
+
+import android.content.Context
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.cashflow.app.di.AppModule
+import java.util.concurrent.TimeUnit
+
+// Rolls the materialized bill and income occurrences forward once a day, so reads rarely have to
+// expand a new month themselves
+class OccurrenceWindowWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    override suspend fun doWork(): Result {
+        AppModule.provideRepository(applicationContext).extendOccurrenceWindow()
+        return Result.success()
+    }
+
+    companion object {
+        private const val WORK_NAME = "occurrence_window"
+
+        // Safe to call on every launch; an already scheduled job is kept
+        fun schedule(context: Context) {
+            val request = PeriodicWorkRequestBuilder<OccurrenceWindowWorker>(1, TimeUnit.DAYS).build()
+            WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+    }
+}
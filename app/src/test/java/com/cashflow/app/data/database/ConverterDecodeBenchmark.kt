@@ -0,0 +1,87 @@
+package com.cashflow.app.data.database
+
+import com.cashflow.app.data.entity.TransactionEntity
+import com.cashflow.app.data.model.TransactionType
+import kotlinx.datetime.Instant
+import kotlinx.datetime.LocalDate
+import kotlinx.datetime.LocalDateTime
+import kotlinx.datetime.TimeZone
+import kotlinx.datetime.atStartOfDayIn
+import kotlinx.datetime.toLocalDateTime
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import kotlin.system.measureNanoTime
+
+/**
+ * Turns 200k transaction rows into entities column by column, as Room's generated code reads a
+ * cursor: once from the ISO text and enum names stored before version 8, once from the epoch-day,
+ * epoch-millis and type-code columns [Converters] reads now. Both must give the same entities.
+ * The timing run only prints the best of several rounds and is skipped unless asked for:
+ * ./gradlew :app:testDebugUnitTest --tests '*ConverterDecodeBenchmark' -Pbenchmark -i
+ */
+class ConverterDecodeBenchmark {
+    private val converters = Converters()
+
+    // The stored columns of each synthetic row, in both encodings
+    private val days = IntArray(ROWS) { FIRST_DAY + it % 800 }
+    private val millis = LongArray(ROWS) { converters.fromLocalDateTime(timestampOf(it)) }
+    private val codes = IntArray(ROWS) { it % TransactionType.values().size }
+    private val dateTexts = Array(ROWS) { LocalDate.fromEpochDays(days[it]).toString() }
+    private val timestampTexts = Array(ROWS) { timestampOf(it).toString() }
+    private val typeNames = Array(ROWS) { TransactionType.fromCode(codes[it]).name }
+
+    @Test
+    fun integerColumnsDecodeToTheSameEntities() {
+        assertEquals(decodeText(), decodeIntegers())
+    }
+
+    @Test
+    fun timeTextAndIntegerDecoding() {
+        assumeTrue(java.lang.Boolean.getBoolean("cashflow.benchmark"))
+
+        repeat(WARMUP_ROUNDS) {
+            decodeText()
+            decodeIntegers()
+        }
+        val textNanos = (1..ROUNDS).minOf { measureNanoTime { decodeText() } }
+        val integerNanos = (1..ROUNDS).minOf { measureNanoTime { decodeIntegers() } }
+        println(
+            "Decoded $ROWS rows: text %.1f ms, integer %.1f ms (%.1fx)".format(
+                textNanos / 1e6, integerNanos / 1e6, textNanos.toDouble() / integerNanos
+            )
+        )
+    }
+
+    private fun decodeText(): List<TransactionEntity> = List(ROWS) {
+        entity(it, TransactionType.valueOf(typeNames[it]), LocalDate.parse(dateTexts[it]), LocalDateTime.parse(timestampTexts[it]))
+    }
+
+    private fun decodeIntegers(): List<TransactionEntity> = List(ROWS) {
+        entity(it, converters.toTransactionType(codes[it]), converters.toLocalDate(days[it]), converters.toLocalDateTime(millis[it]))
+    }
+
+    private fun entity(row: Int, type: TransactionType, date: LocalDate, timestamp: LocalDateTime) = TransactionEntity(
+        id = row + 1L,
+        accountId = 1L + row % 4,
+        type = type,
+        amount = 12.5,
+        date = date,
+        timestamp = timestamp,
+        description = "Row"
+    )
+
+    // Some time during the row's day, with a millisecond part on most rows
+    private fun timestampOf(row: Int): LocalDateTime {
+        val start = LocalDate.fromEpochDays(FIRST_DAY + row % 800).atStartOfDayIn(TimeZone.UTC)
+        return Instant.fromEpochMilliseconds(start.toEpochMilliseconds() + row * 7_919L % 86_400_000L)
+            .toLocalDateTime(TimeZone.UTC)
+    }
+
+    private companion object {
+        const val ROWS = 200_000
+        const val FIRST_DAY = 19_000
+        const val WARMUP_ROUNDS = 3
+        const val ROUNDS = 5
+    }
+}